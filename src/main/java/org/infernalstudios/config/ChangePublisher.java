@@ -0,0 +1,239 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.infernalstudios.config.element.IConfigElement;
+
+/**
+ * Publishes the changes of a config to {@link Flow.Subscriber subscribers}, see {@link Config#changes(Executor)}.
+ * <p>
+ * Each subscription keeps at most one pending change per element. Further changes of an element that was not delivered yet
+ * are merged into it, keeping the oldest old value and the newest new value and generation.
+ * Changes are only queued by the config, and delivered on the executor as subscribers request them,
+ * so slow subscribers never block reloads and only fall behind by one change per element.
+ * <p>
+ * The publisher is only referenced by the config while it has subscriptions, so unused publishers can be collected.
+ */
+final class ChangePublisher implements Flow.Publisher<ConfigChange> {
+    private final Config config;
+    private final Executor executor;
+    private final List<ChangeSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Consumer<List<ConfigChange>> listener = this::offer;
+
+    ChangePublisher(Config config, Executor executor) {
+        this.config = config;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ConfigChange> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber must not be null");
+        ChangeSubscription subscription = new ChangeSubscription(subscriber);
+        synchronized (this) {
+            if (this.subscriptions.isEmpty()) {
+                this.config.onChange(this.listener);
+                this.config.addPublisher(this);
+            }
+            this.subscriptions.add(subscription);
+        }
+        subscription.schedule();
+    }
+
+    /**
+     * Completes all subscriptions after their pending changes are delivered.
+     */
+    void complete() {
+        for (ChangeSubscription subscription : this.subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    private void offer(List<ConfigChange> changes) {
+        for (ChangeSubscription subscription : this.subscriptions) {
+            subscription.offer(changes);
+        }
+    }
+
+    private synchronized void remove(ChangeSubscription subscription) {
+        this.subscriptions.remove(subscription);
+        if (this.subscriptions.isEmpty()) {
+            this.config.removeChangeListener(this.listener);
+            this.config.removePublisher(this);
+        }
+    }
+
+    private final class ChangeSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super ConfigChange> subscriber;
+        private final Map<IConfigElement<?>, ConfigChange> pending = new LinkedHashMap<>();
+        private long demand = 0;
+        private boolean subscribed = false;
+        private boolean scheduled = false;
+        private boolean completed = false;
+        private boolean cancelled = false;
+
+        private ChangeSubscription(Flow.Subscriber<? super ConfigChange> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void offer(List<ConfigChange> changes) {
+            synchronized (this) {
+                if (this.cancelled || this.completed) {
+                    return;
+                }
+                for (ConfigChange change : changes) {
+                    this.pending.merge(change.getElement(), change, (older, newer) ->
+                            new ConfigChange(newer.getElement(), older.getOldValue(), newer.getNewValue(), newer.getGeneration()));
+                }
+            }
+            this.schedule();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                this.completed = true;
+            }
+            this.schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (this.cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    // Signalled by run(), so it is serialized with the other signals
+                    this.demand = -1;
+                } else {
+                    this.demand += n;
+                    if (this.demand < 0) {
+                        this.demand = Long.MAX_VALUE;
+                    }
+                }
+            }
+            this.schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                this.cancelled = true;
+                this.pending.clear();
+            }
+            ChangePublisher.this.remove(this);
+        }
+
+        /**
+         * Runs this subscription on the executor, unless it is already scheduled.
+         * If the executor rejects it, such as after it was shut down, the subscription is cancelled with an error,
+         * and the exception does not reach the config that offered the changes.
+         */
+        private void schedule() {
+            synchronized (this) {
+                if (this.scheduled || this.cancelled) {
+                    return;
+                }
+                this.scheduled = true;
+            }
+            try {
+                ChangePublisher.this.executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // Cancelled before it is unscheduled, so it is never scheduled again, and nothing else signals the subscriber
+                synchronized (this) {
+                    this.cancelled = true;
+                    this.pending.clear();
+                    this.scheduled = false;
+                }
+                ChangePublisher.this.remove(this);
+                try {
+                    if (!this.subscribed) {
+                        this.subscribed = true;
+                        this.subscriber.onSubscribe(this);
+                    }
+                    this.subscriber.onError(e);
+                } catch (RuntimeException e2) {
+                    System.err.println("Config change subscriber threw an exception.");
+                    e2.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Delivers signals until there is no demand or nothing to deliver. Only ever runs on one thread at a time.
+         */
+        @Override
+        public void run() {
+            try {
+                if (!this.subscribed) {
+                    this.subscribed = true;
+                    this.subscriber.onSubscribe(this);
+                }
+                while (true) {
+                    ConfigChange next = null;
+                    boolean complete = false;
+                    boolean invalidRequest = false;
+                    synchronized (this) {
+                        if (this.cancelled) {
+                            this.scheduled = false;
+                            return;
+                        } else if (this.demand < 0) {
+                            invalidRequest = true;
+                        } else if (this.demand > 0 && !this.pending.isEmpty()) {
+                            Iterator<ConfigChange> iterator = this.pending.values().iterator();
+                            next = iterator.next();
+                            iterator.remove();
+                            if (this.demand != Long.MAX_VALUE) {
+                                this.demand--;
+                            }
+                        } else if (this.completed && this.pending.isEmpty()) {
+                            complete = true;
+                        } else {
+                            this.scheduled = false;
+                            return;
+                        }
+                    }
+                    if (invalidRequest) {
+                        this.cancel();
+                        this.subscriber.onError(new IllegalArgumentException("Requested a non-positive number of changes"));
+                    } else if (complete) {
+                        this.cancel();
+                        this.subscriber.onComplete();
+                    } else {
+                        this.subscriber.onNext(next);
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Config change subscriber threw an exception, cancelling its subscription.");
+                e.printStackTrace();
+                this.cancel();
+                synchronized (this) {
+                    this.scheduled = false;
+                }
+            }
+        }
+    }
+}
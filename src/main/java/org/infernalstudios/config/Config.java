@@ -17,82 +17,389 @@ package org.infernalstudios.config;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import com.electronwill.nightconfig.core.file.CommentedFileConfig;
-import com.electronwill.nightconfig.core.file.FileWatcher;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
 
 import org.infernalstudios.config.annotation.AutoSerializable;
+import org.infernalstudios.config.annotation.Configurable;
 import org.infernalstudios.config.element.IConfigElement;
 import org.infernalstudios.config.element.handler.*;
+import org.infernalstudios.config.format.BinaryConfigFormat;
+import org.infernalstudios.config.format.IConfigFormat;
+import org.infernalstudios.config.format.JsonConfigFormat;
+import org.infernalstudios.config.format.TomlConfigFormat;
+import org.infernalstudios.config.util.Pair;
+import org.infernalstudios.config.util.ReflectionCache;
+import org.infernalstudios.config.util.annotation.Nullable;
 
-public final class Config {
-    private final CommentedFileConfig config;
+public final class Config implements AutoCloseable {
+    private final Path path;
+    private final IConfigFormat format;
+    private final ConfigStorage storage;
+    private volatile CommentedConfig config = CommentedConfig.inMemory();
     private final List<IConfigElement<?>> elements;
     private final List<Consumer<ReloadStage>> reloadListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<ConfigChange>>> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<ChangePublisher> publishers = new CopyOnWriteArrayList<>();
+    private final Map<IConfigElement<?>, Integer> ordinals = new IdentityHashMap<>();
+    private final Map<IConfigElement<?>, Sidecar> sidecars = new IdentityHashMap<>();
+    private final List<String>[] paths;
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private final Set<Config> dependencies = new CopyOnWriteArraySet<>();
+    private final Set<Config> dependents = new CopyOnWriteArraySet<>();
+    @Nullable
+    private final Journal journal;
+    private final Map<String, Object> journaled = new LinkedHashMap<>();
+    private boolean compactionScheduled = false;
+    private final int schemaHash;
+    private final Object[] snapshot;
+    private final Interpolator interpolator = new Interpolator();
+    private final Object[] interpolated;
+    private final long[] modifiedGenerations;
+    private volatile long generation = 0;
+    private final ConfigStatistics statistics = new ConfigStatistics();
+    @Nullable
+    private ObjectName mbeanName;
+
+    Config(Path path, IConfigFormat format, ConfigStorage storage, List<IConfigElement<?>> elements) {
+        this(path, format, storage, elements, null);
+    }
+
+    Config(Path path, IConfigFormat format, ConfigStorage storage, List<IConfigElement<?>> elements, @Nullable Journal journal) {
+        this(path, format, storage, elements, journal, Config.splitPaths(elements), Config.computeSchemaHash(elements));
+    }
 
-    Config(CommentedFileConfig config, List<IConfigElement<?>> elements) {
-        this.config = config;
+    /**
+     * @param paths      The split names of the elements, see {@link Config#splitPaths(List)}
+     * @param schemaHash The hash of the elements, see {@link Config#computeSchemaHash(List)}
+     */
+    Config(Path path, IConfigFormat format, ConfigStorage storage, List<IConfigElement<?>> elements, @Nullable Journal journal, List<String>[] paths, int schemaHash) {
+        this.path = path;
+        this.format = format;
+        this.storage = storage;
+        this.journal = journal;
         this.elements = new CopyOnWriteArrayList<>(elements);
+        this.snapshot = new Object[elements.size()];
+        this.interpolated = new Object[elements.size()];
+        this.paths = paths;
+        this.schemaHash = schemaHash;
+        this.modifiedGenerations = new long[elements.size()];
+
+        for (IConfigElement<?> element : this.elements) {
+            this.ordinals.put(element, this.ordinals.size());
+            Configurable configurable = element.getField() == null ? null : ReflectionCache.of(element.getField()).getAnnotation(Configurable.class);
+            if (configurable != null && configurable.sidecar()) {
+                if (!List.class.isAssignableFrom(element.getType())) {
+                    throw new IllegalStateException(String.format("Only list elements can be stored in a sidecar\n\tat: %s",
+                            element.getField().toGenericString()));
+                }
+                this.sidecars.put(element, new Sidecar(this, element, configurable.sidecarChunkSize()));
+            }
+        }
 
         this.reload();
+        this.save();
 
-        synchronized (this.config) {
-            this.save();
+        storage.watch(path, this::onFileChanged);
+    }
+
+    /**
+     * Reloads the config after the file changed, unless another reload is already waiting to read the file.
+     * Watchers often report a single write as several changes, which then only cause one reload.
+     * Configs that {@link Config#dependsOn(Config) depend} on this config are reloaded after it.
+     */
+    private void onFileChanged() {
+        if (this.reloadQueued.compareAndSet(false, true)) {
+            if (this.dependents.isEmpty()) {
+                this.reload();
+            } else {
+                ReloadPlan.of(this).run(ForkJoinPool.commonPool());
+            }
         }
+    }
 
-        try {
-            FileWatcher.defaultInstance().addWatch(config.getNioPath(), new Thread(Config.this::reload));
-        } catch (IOException e) {
-            System.err.println(String.format("Couldn't watch file \"%s\" for changes.",
-                    config.getNioPath().toAbsolutePath()));
+    /**
+     * Declares that values of this config depend on values of {@code dependency}, such as IDs defined in a registry config.
+     * When the file of {@code dependency} changes, it is reloaded first, then this config and every other config depending on it,
+     * see {@link Config#reloadWithDependents(Executor)}.
+     *
+     * @throws IllegalArgumentException If {@code dependency} already depends on this config, directly or indirectly
+     */
+    public void dependsOn(Config dependency) throws IllegalArgumentException {
+        synchronized (ReloadPlan.class) {
+            if (dependency == this || ReloadPlan.of(this).contains(dependency)) {
+                throw new IllegalArgumentException(String.format("Config \"%s\" cannot depend on \"%s\", as it would create a cycle",
+                        this.path, dependency.path));
+            }
+            this.dependencies.add(dependency);
+            dependency.dependents.add(this);
         }
     }
 
-    public CommentedFileConfig getConfig() {
+    /**
+     * Reloads this config and every config that depends on it, directly or indirectly, in the order of their dependencies.
+     * Configs whose dependencies were all reloaded are reloaded in parallel on {@code executor}.
+     * {@link ReloadStage#POST POST} is only emitted once all of them were reloaded, so listeners see the new values of every config.
+     */
+    public void reloadWithDependents(Executor executor) {
+        ReloadPlan.of(this).run(executor);
+    }
+
+    Set<Config> getDependencies() {
+        return this.dependencies;
+    }
+
+    Set<Config> getDependents() {
+        return this.dependents;
+    }
+
+    /**
+     * Returns the values as last read from or written to the config file.
+     */
+    public CommentedConfig getConfig() {
         return config;
     }
 
+    /**
+     * Returns the path of the config file. For {@link ConfigBuilder#buildInMemory() in-memory} configs, this only identifies the config.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    public IConfigFormat getFormat() {
+        return format;
+    }
+
     public Iterator<IConfigElement<?>> getElements() {
         return elements.iterator();
     }
 
     /**
      * Saves all config values to the config file.
+     * <p>
+     * The file is not written if no value or comment differs from what was last read or written.
+     * If only values of existing keys changed, the format may {@link IConfigFormat#patch(String, Map) patch} them into the file,
+     * keeping the rest of it as it is.
      */
     @SuppressWarnings("unchecked")
-    public void save() {
-        for (IConfigElement<?> element : this.elements) {
-            this.config.set(element.getName(), ((IConfigElement<Object>) element).getTypeHandler().serialize((IConfigElement<Object>) element));
-            this.config.setComment(element.getName(), element.getComment());
+    public synchronized void save() {
+        long start = System.nanoTime();
+        Map<String, Object> changes = null;
+        boolean rewrite = false;
+        for (int i = 0; i < this.snapshot.length; i++) {
+            IConfigElement<?> element = this.elements.get(i);
+            List<String> path = this.paths[i];
+            Sidecar sidecar = this.sidecars.get(element);
+            if (sidecar != null) {
+                if (this.config.remove(path) != null) {
+                    rewrite = true;
+                }
+                sidecar.save();
+                continue;
+            }
+            Object value = ((IConfigElement<Object>) element).getTypeHandler().serialize((IConfigElement<Object>) element);
+            Object oldValue;
+            if (value != null && value.equals(this.interpolated[i])) {
+                // Keeps the references in the file, as long as the value was not changed to something else
+                oldValue = value;
+            } else {
+                this.interpolated[i] = null;
+                oldValue = this.config.set(path, value);
+            }
+            if (oldValue == null) {
+                rewrite = true;
+            } else if (!oldValue.equals(value)) {
+                if (changes == null) {
+                    changes = new LinkedHashMap<>();
+                }
+                changes.put(element.getName(), value);
+            }
+            if (this.format.supportsComments()) {
+                String comment = element.getComment();
+                if (!Objects.equals(comment, this.config.getComment(path))) {
+                    this.config.setComment(path, comment);
+                    rewrite = true;
+                }
+            }
+        }
+        if (rewrite) {
+            this.storage.write(this.path, this.config, null);
+            this.clearJournal();
+            this.statistics.recordWrite();
+        } else if (changes != null) {
+            this.statistics.recordWrite();
+            if (this.journal != null) {
+                this.journal.append(changes);
+                this.journaled.putAll(changes);
+                if (this.journal.shouldCompact() && !this.compactionScheduled) {
+                    this.compactionScheduled = true;
+                    Journal.COMPACTOR.execute(this::compact);
+                }
+            } else {
+                this.storage.write(this.path, this.config, changes);
+            }
+        }
+        this.updateGenerations();
+        this.statistics.recordSave(System.nanoTime() - start);
+    }
+
+    /**
+     * Writes all values in the journal to the config file, and clears the journal. Does nothing if there is no journal.
+     *
+     * @see ConfigBuilder#journal(long)
+     */
+    public synchronized void compact() {
+        this.compactionScheduled = false;
+        if (this.journal == null || this.journal.isEmpty()) {
+            return;
+        }
+        this.storage.write(this.path, this.config, new LinkedHashMap<>(this.journaled));
+        this.clearJournal();
+    }
+
+    private void clearJournal() {
+        if (this.journal != null && !this.journal.isEmpty()) {
+            this.journal.clear();
+        }
+        this.journaled.clear();
+    }
+
+    /**
+     * Reads the file at {@code path} from the storage of this config.
+     */
+    CommentedConfig read(Path path) {
+        return this.storage.read(path);
+    }
+
+    /**
+     * Writes {@code config} to the file at {@code path} in the storage of this config.
+     */
+    void write(Path path, UnmodifiableConfig config) {
+        this.storage.write(path, config);
+    }
+
+    ConfigStorage getStorage() {
+        return this.storage;
+    }
+
+    /**
+     * Returns true if this config was {@link ConfigBuilder#buildInMemory() built in memory}, and is not backed by any files.
+     */
+    public boolean isInMemory() {
+        return this.storage instanceof MemoryStorage;
+    }
+
+    /**
+     * Changes the stored contents of an {@link Config#isInMemory() in-memory} config, as if its file was edited by someone else,
+     * and reloads the config on the calling thread, like the file watcher would for a config file.
+     *
+     * @throws IllegalStateException If this config is not in memory
+     */
+    public void simulateExternalEdit(Consumer<CommentedConfig> edit) throws IllegalStateException {
+        if (!(this.storage instanceof MemoryStorage memory)) {
+            throw new IllegalStateException(String.format("Only in-memory configs can simulate external edits\n\tat: %s", this.path));
+        }
+        memory.edit(this.path, edit);
+    }
+
+    /**
+     * Stops watching the config file and any sidecar files for changes, completes {@link Config#changes() change subscriptions},
+     * and merges the journal into the config file if there is one.
+     * The config can still be used, but is no longer reloaded automatically.
+     */
+    @Override
+    public synchronized void close() {
+        this.unregisterMBean();
+        synchronized (ReloadPlan.class) {
+            for (Config dependency : this.dependencies) {
+                dependency.dependents.remove(this);
+            }
+            this.dependencies.clear();
+        }
+        this.storage.close();
+        for (ChangePublisher publisher : this.publishers) {
+            publisher.complete();
+        }
+        this.publishers.clear();
+        if (this.journal != null) {
+            this.compact();
+            this.journal.close();
         }
-        this.config.save();
     }
 
     /**
      * Reloads the config elements, sets their values from the config file.
+     * Values that are missing or {@link IConfigElement#isValid(Object) invalid} are replaced in the file by the current values.
+     * <p>
+     * String values may reference other keys, such as {@code "${general.baseRadius}"}, which are resolved before the values are set.
+     * The references are kept in the file until the value is changed, see {@link Interpolator}.
      */
-    @SuppressWarnings("unchecked")
-    public void reload() {
+    public synchronized void reload() {
+        this.reload(true);
+    }
+
+    /**
+     * Reloads the config elements, and only emits {@link ReloadStage#POST POST} if {@code notify} is true.
+     */
+    synchronized void reload(boolean notify) {
+        long start = System.nanoTime();
+        // Changes after this point are not read by this reload, so they have to queue another one
+        this.reloadQueued.set(false);
         for (Consumer<ReloadStage> listener : this.reloadListeners) {
             listener.accept(ReloadStage.PRE);
         }
-        this.config.load();
+        this.config = this.read(this.path);
+        if (this.journal != null) {
+            this.journaled.clear();
+            this.journaled.putAll(this.journal.replay(this.config));
+        }
+        this.interpolator.begin(this.config);
         boolean shouldSave = false;
-        for (IConfigElement<?> element : this.elements) {
-            Object obj = this.config.get(element.getName());
-            IConfigElementHandler<Object, Object> handler = (IConfigElementHandler<Object, Object>) element.getTypeHandler();
-            if (obj != null && handler.canHandle(obj.getClass())) {
-                handler.update(((IConfigElement<Object>) element), handler.deserialize((IConfigElement<Object>) element, obj));
-            } else {
-                this.config.set(element.getName(), handler.serialize((IConfigElement<Object>) element));
+        for (int i = 0; i < this.snapshot.length; i++) {
+            IConfigElement<?> element = this.elements.get(i);
+            Sidecar sidecar = this.sidecars.get(element);
+            if (sidecar != null) {
+                // Sidecars are only read once here, afterwards they are reloaded on their own when changed
+                if (!sidecar.isLoaded()) {
+                    sidecar.load();
+                }
+                continue;
+            }
+            Object raw = this.config.get(this.paths[i]);
+            Object value = this.interpolator.resolve(element.getName(), raw);
+            // Values that kept their text, such as keys on a cycle of references, are saved like any other value
+            this.interpolated[i] = Objects.equals(value, raw) ? null : value;
+            if (!Config.update(element, value)) {
+                // The invalid or missing value is replaced by save()
                 shouldSave = true;
             }
         }
@@ -102,11 +409,199 @@ public final class Config {
             }
             this.save();
         }
+        this.updateGenerations();
+        if (notify) {
+            this.notifyReloaded();
+        }
+        this.statistics.recordReload(System.nanoTime() - start);
+    }
+
+    void notifyReloaded() {
+        for (Consumer<ReloadStage> listener : this.reloadListeners) {
+            listener.accept(ReloadStage.POST);
+        }
+    }
+
+    /**
+     * Reloads a single chunk of a sidecar after it was changed, or deleted. Listeners are only notified if the chunk changed.
+     */
+    synchronized void reloadSidecar(Sidecar sidecar, int chunk) {
+        if (!sidecar.reload(chunk)) {
+            return;
+        }
+        for (Consumer<ReloadStage> listener : this.reloadListeners) {
+            listener.accept(ReloadStage.PRE);
+        }
+        sidecar.apply();
+        this.updateGenerations();
+        for (Consumer<ReloadStage> listener : this.reloadListeners) {
+            listener.accept(ReloadStage.POST);
+        }
+    }
+
+    /**
+     * Returns the current generation of this config.
+     * The generation is incremented every time the values of one or more elements are observed to have changed,
+     * either by {@link Config#reload() reload()}, {@link Config#save() save()}, {@link Config#batch(Consumer) batch()},
+     * or by {@link Config#pollChanges()} after {@link IConfigElement#set(Object) set()}.
+     */
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Compares the current element values to the last observed ones, such as after they were changed with {@link IConfigElement#set(Object) set()},
+     * and starts a new generation if any changed. Change listeners are notified on the calling thread.
+     *
+     * @return The current generation
+     */
+    public long pollChanges() {
+        return this.updateGenerations();
+    }
+
+    /**
+     * Compares the current element values to the last observed ones, and starts a new generation if any changed.
+     * Change listeners are notified once with all changed elements.
+     */
+    synchronized long updateGenerations() {
+        List<ConfigChange> changes = null;
+        for (int i = 0; i < this.snapshot.length; i++) {
+            IConfigElement<?> element = this.elements.get(i);
+            Object value = element.get();
+            if (!Objects.equals(value, this.snapshot[i])) {
+                if (changes == null) {
+                    changes = new ArrayList<>();
+                    this.generation++;
+                }
+                changes.add(new ConfigChange(element, this.snapshot[i], value, this.generation));
+                this.snapshot[i] = value;
+                this.modifiedGenerations[i] = this.generation;
+            }
+        }
+        if (changes != null) {
+            List<ConfigChange> unmodifiableChanges = Collections.unmodifiableList(changes);
+            for (Consumer<List<ConfigChange>> listener : this.changeListeners) {
+                listener.accept(unmodifiableChanges);
+            }
+        }
+        return this.generation;
+    }
+
+    /**
+     * Sets the values of many elements at once.
+     * <p>
+     * All values staged in {@code transaction} are validated first, and if any is invalid, none are applied.
+     * Otherwise, they are applied while no reload or save can run, the config file is written once,
+     * and {@link Config#onChange(Consumer) change listeners} are notified once with all changed elements.
+     * 
+     * @throws IllegalArgumentException If any staged value is not valid for its element
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void batch(Consumer<ConfigTransaction> transaction) throws IllegalArgumentException {
+        ConfigTransaction tx = new ConfigTransaction(this);
+        transaction.accept(tx);
+
+        List<String> invalid = new ArrayList<>();
+        for (Map.Entry<IConfigElement<?>, Object> entry : tx.getValues().entrySet()) {
+            if (!((IConfigElement<Object>) entry.getKey()).isValid(entry.getValue())) {
+                invalid.add(String.format("\"%s\" for \"%s\"", entry.getValue(), entry.getKey().getName()));
+            }
+        }
+        if (!invalid.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Invalid values: %s", String.join(", ", invalid)));
+        }
+
+        for (Map.Entry<IConfigElement<?>, Object> entry : tx.getValues().entrySet()) {
+            ((IConfigElement<Object>) entry.getKey()).set(entry.getValue());
+        }
+        if (this.hasChanges()) {
+            this.save();
+        }
+    }
+
+    /**
+     * Runs {@code reader} while no {@link Config#reload() reload()}, {@link Config#save() save()} or {@link Config#batch(Consumer) batch()} can run,
+     * so it sees the values of all elements from the same point in time.
+     * Values set directly with {@link IConfigElement#set(Object) set()} from other threads are not prevented,
+     * and reads of the {@link Configurable} static fields themselves are not covered, only reads through the elements.
+     */
+    public synchronized <R> R consistentRead(Supplier<R> reader) {
+        return reader.get();
+    }
+
+    private synchronized boolean hasChanges() {
+        for (int i = 0; i < this.snapshot.length; i++) {
+            if (!Objects.equals(this.elements.get(i).get(), this.snapshot[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the generation in which the element at {@code ordinal} last changed.
+     */
+    synchronized long getModifiedGeneration(int ordinal) {
+        return this.modifiedGenerations[ordinal];
+    }
+
+    /**
+     * Returns a hash of the names and types of all elements, in order.
+     * Two configs built from the same classes have the same schema hash.
+     */
+    int getSchemaHash() {
+        return this.schemaHash;
+    }
+
+    IConfigElement<?> getElement(int ordinal) {
+        return this.elements.get(ordinal);
+    }
+
+    int getElementCount() {
+        return this.elements.size();
+    }
+
+    /**
+     * Applies already serialized values to their elements, as if they had been read from the config file.
+     * Values that cannot be handled by the element's handler are ignored.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized void apply(List<Pair<IConfigElement<?>, Object>> values) {
+        for (Consumer<ReloadStage> listener : this.reloadListeners) {
+            listener.accept(ReloadStage.PRE);
+        }
+        for (Pair<IConfigElement<?>, Object> pair : values) {
+            Config.update(pair.getLeft(), pair.getRight());
+        }
+        this.updateGenerations();
         for (Consumer<ReloadStage> listener : this.reloadListeners) {
             listener.accept(ReloadStage.POST);
         }
     }
 
+    /**
+     * Deserializes {@code obj} and updates {@code element} with it, if its handler can handle it and the result is {@link IConfigElement#isValid(Object) valid}.
+     *
+     * @return False if the value was missing or not used
+     */
+    @SuppressWarnings("unchecked")
+    static boolean update(IConfigElement<?> element, @Nullable Object obj) {
+        IConfigElement<Object> e = (IConfigElement<Object>) element;
+        IConfigElementHandler<Object, Object> handler = (IConfigElementHandler<Object, Object>) e.getTypeHandler();
+        if (obj == null || !handler.canHandle(obj.getClass())) {
+            return false;
+        }
+        Object value = handler.deserialize(e, obj);
+        if (value != null && !e.isValid(value)) {
+            Object current = e.get();
+            System.err.println(String.format("Invalid value \"%s\" for \"%s\", keeping \"%s\" instead.",
+                    value, e.getName(), current == null ? e.getDefault() : current));
+            return false;
+        }
+        handler.update(e, value);
+        return true;
+    }
+
     public enum ReloadStage {
         /**
          * Emitted when {@link Config#reload() reload()} is called.
@@ -130,6 +625,119 @@ public final class Config {
         this.reloadListeners.add(runnable);
     }
 
+    /**
+     * Adds a listener that is notified with all elements whose values changed together,
+     * such as in a single {@link Config#reload() reload()} or {@link Config#batch(Consumer) batch()}.
+     */
+    public void onChange(Consumer<List<ConfigChange>> listener) {
+        this.changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Consumer<List<ConfigChange>> listener) {
+        this.changeListeners.remove(listener);
+    }
+
+    /**
+     * Returns a publisher of the changes of this config, delivering them on the common fork-join pool.
+     *
+     * @see Config#changes(Executor)
+     */
+    public Flow.Publisher<ConfigChange> changes() {
+        return this.changes(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a publisher of the changes of this config after subscribing, delivering them on {@code executor} as subscribers request them.
+     * <p>
+     * Changes a subscriber has not requested yet are coalesced per element, keeping the oldest old value and the newest new value,
+     * so slow subscribers never block {@link Config#reload() reload()} or other writers.
+     * Subscriptions are completed when the config is {@link Config#close() closed}.
+     */
+    public Flow.Publisher<ConfigChange> changes(Executor executor) {
+        return new ChangePublisher(this, executor);
+    }
+
+    /**
+     * Adds a publisher to complete on {@link Config#close()}, when it gets its first subscription.
+     */
+    void addPublisher(ChangePublisher publisher) {
+        this.publishers.add(publisher);
+    }
+
+    /**
+     * Removes a publisher when its last subscription ends.
+     */
+    void removePublisher(ChangePublisher publisher) {
+        this.publishers.remove(publisher);
+    }
+
+    /**
+     * Returns the reload and save statistics of this config.
+     */
+    public ConfigStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Registers an MBean with the platform MBean server, so values and statistics of this config can be viewed and changed with JMX tools.
+     * It is unregistered when the config is {@link Config#close() closed}. Registering the same config again returns the existing name.
+     *
+     * @throws JMException If the MBean cannot be registered, such as when another config with the same path is registered
+     */
+    public synchronized ObjectName registerMBean() throws JMException {
+        if (this.mbeanName == null) {
+            ObjectName name = new ObjectName("org.infernalstudios.config", "path", ObjectName.quote(this.path.toString()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new ConfigMBean(this), name);
+            this.mbeanName = name;
+        }
+        return this.mbeanName;
+    }
+
+    private void unregisterMBean() {
+        if (this.mbeanName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.mbeanName);
+        } catch (JMException e) {
+            System.err.println(String.format("Could not unregister MBean \"%s\".", this.mbeanName));
+            e.printStackTrace();
+        }
+        this.mbeanName = null;
+    }
+
+    /**
+     * Returns a value computed by {@code function} from {@code element}, which is only computed again after the element changed.
+     *
+     * @throws IllegalArgumentException If the element does not belong to this config
+     */
+    public <E, T> DerivedValue<T> derive(Function<E, T> function, IConfigElement<E> element) throws IllegalArgumentException {
+        return this.derive(() -> function.apply(element.get()), new IConfigElement<?>[] { element });
+    }
+
+    /**
+     * Returns a value computed by {@code function}, which is only computed again after one of {@code elements} changed.
+     * The function should only depend on the values of these elements, see {@link DerivedValue}.
+     *
+     * @throws IllegalArgumentException If an element does not belong to this config
+     */
+    public <T> DerivedValue<T> derive(Supplier<T> function, IConfigElement<?>... elements) throws IllegalArgumentException {
+        for (IConfigElement<?> element : elements) {
+            if (this.getOrdinal(element) < 0) {
+                throw new IllegalArgumentException(String.format("Element \"%s\" does not belong to config \"%s\"", element.getName(), this.path));
+            }
+        }
+        return new DerivedValue<>(function, elements.clone());
+    }
+
+    /**
+     * Returns the ordinal of {@code element} in this config, or -1 if it does not belong to this config.
+     */
+    int getOrdinal(IConfigElement<?> element) {
+        Integer ordinal = this.ordinals.get(element);
+        return ordinal == null ? -1 : ordinal;
+    }
+
     /**
      * Creates a config builder.
      * @throws IOException If the provided path exists, and is invalid.
@@ -154,10 +762,76 @@ public final class Config {
         return new ConfigBuilder(path);
     }
 
+    private static final Map<String, IConfigFormat> FORMATS = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a file format for all of its {@link IConfigFormat#getExtensions() extensions}.
+     */
+    public static void registerFormat(IConfigFormat format) {
+        for (String extension : format.getExtensions()) {
+            Config.FORMATS.put(extension.toLowerCase(Locale.ROOT), format);
+        }
+    }
+
+    /**
+     * Returns the format registered for the extension of {@code path}, or TOML if there is none.
+     */
+    public static IConfigFormat getFormat(Path path) {
+        Path fileName = path.getFileName();
+        String name = fileName == null ? "" : fileName.toString();
+        int index = name.lastIndexOf('.');
+        if (index >= 0) {
+            IConfigFormat format = Config.FORMATS.get(name.substring(index + 1).toLowerCase(Locale.ROOT));
+            if (format != null) {
+                return format;
+            }
+        }
+        return TomlConfigFormat.INSTANCE;
+    }
+
+    /**
+     * Splits the names of all elements once, as night-config would split them on every access.
+     */
+    @SuppressWarnings("unchecked")
+    static List<String>[] splitPaths(List<? extends IConfigElement<?>> elements) {
+        List<String>[] paths = new List[elements.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = List.of(elements.get(i).getName().split("\\."));
+        }
+        return paths;
+    }
+
+    /**
+     * Returns a hash of the names and types of all elements, in order, see {@link Config#getSchemaHash()}.
+     */
+    static int computeSchemaHash(List<? extends IConfigElement<?>> elements) {
+        int schemaHash = 1;
+        for (IConfigElement<?> element : elements) {
+            schemaHash = 31 * schemaHash + element.getName().hashCode();
+            schemaHash = 31 * schemaHash + element.getType().getName().hashCode();
+        }
+        return schemaHash;
+    }
+
     private static final Map<Class<?>, IConfigElementHandler<?, ?>> HANDLERS = new ConcurrentHashMap<>();
+    /**
+     * Handlers of {@link AutoSerializable} classes, kept in a {@link ClassValue} so they do not prevent the classes from being unloaded.
+     */
+    private static final ClassValue<IConfigElementHandler<?, ?>> AUTO_HANDLERS = new ClassValue<>() {
+        @Override
+        protected IConfigElementHandler<?, ?> computeValue(Class<?> type) {
+            return new AutoElementHandler<>(type);
+        }
+    };
+    /**
+     * Handlers found by searching all registered handlers, replaced by a new instance whenever a handler is registered.
+     * A lookup racing with a registration can only store its result in the replaced instance, which is then discarded.
+     */
+    private static volatile ClassValue<Optional<IConfigElementHandler<?, ?>>> resolvedHandlers = Config.createResolvedHandlers();
 
-    public static <T> void registerHandler(Class<T> clazz, IConfigElementHandler<T, ?> handler) {
+    public static synchronized <T> void registerHandler(Class<T> clazz, IConfigElementHandler<T, ?> handler) {
         Config.HANDLERS.put(clazz, handler);
+        Config.resolvedHandlers = Config.createResolvedHandlers();
     }
 
     @SuppressWarnings("unchecked")
@@ -165,22 +839,30 @@ public final class Config {
         IConfigElementHandler<?, ?> handler = Config.HANDLERS.get(clazz);
 
         if (handler == null && clazz.isAnnotationPresent(AutoSerializable.class)) {
-            handler = new AutoElementHandler<>(clazz);
-            registerHandler(clazz, (IConfigElementHandler<T, ?>) handler); // Register the handler for future use
+            handler = Config.AUTO_HANDLERS.get(clazz);
         }
 
         if (handler == null) {
-            for (IConfigElementHandler<?, ?> h : Config.HANDLERS.values()) {
-                if (h.canHandle(clazz)) {
-                    handler = h;
-                    break;
-                }
-            }
+            handler = Config.resolvedHandlers.get(clazz).orElse(null);
         }
 
         return (IConfigElementHandler<T, ?>) handler;
     }
 
+    private static ClassValue<Optional<IConfigElementHandler<?, ?>>> createResolvedHandlers() {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<IConfigElementHandler<?, ?>> computeValue(Class<?> type) {
+                for (IConfigElementHandler<?, ?> handler : Config.HANDLERS.values()) {
+                    if (handler.canHandle(type)) {
+                        return Optional.of(handler);
+                    }
+                }
+                return Optional.empty();
+            }
+        };
+    }
+
     static {
         registerHandler(Boolean.class, BooleanElementHandler.INSTANCE);
         registerHandler(Boolean.TYPE, BooleanElementHandler.INSTANCE);
@@ -193,5 +875,10 @@ public final class Config {
         registerHandler(String.class, StringElementHandler.INSTANCE);
         registerHandler(Number.class, NumberElementHandler.INSTANCE);
         registerHandler(List.class, ListElementHandler.INSTANCE);
+        registerHandler(Map.class, MapElementHandler.INSTANCE);
+
+        registerFormat(TomlConfigFormat.INSTANCE);
+        registerFormat(JsonConfigFormat.INSTANCE);
+        registerFormat(BinaryConfigFormat.INSTANCE);
     }
 }
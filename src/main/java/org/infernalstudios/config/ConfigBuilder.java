@@ -15,39 +15,66 @@
  */
 package org.infernalstudios.config;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
-import com.electronwill.nightconfig.core.file.CommentedFileConfig;
-import com.electronwill.nightconfig.toml.TomlFormat;
-
 import org.infernalstudios.config.annotation.Configurable;
 import org.infernalstudios.config.element.IConfigElement;
 import org.infernalstudios.config.element.handler.IConfigElementHandler;
+import org.infernalstudios.config.format.IConfigFormat;
+import org.infernalstudios.config.format.TomlConfigFormat;
 import org.infernalstudios.config.util.Pair;
+import org.infernalstudios.config.util.ReflectionCache;
 import org.infernalstudios.config.util.Util;
+import org.infernalstudios.config.watcher.IConfigWatcher;
+import org.infernalstudios.config.watcher.NightConfigWatcher;
 
 public final class ConfigBuilder {
+    /**
+     * The directory of the indexes written by the config index processor, which contains one {@code <id>.index} per artifact.
+     */
+    static final String INDEX_DIRECTORY = "META-INF/org.infernalstudios.config/";
+    static final String INDEX_CONFIGURABLE = "configurable";
+    static final String INDEX_SERIALIZABLE = "serializable";
+
     private final Path path;
     private final List<Pair<Field, IConfigElementHandler<?, ?>>> elements = new LinkedList<>();
     private final Set<String> loadedElementNames = new HashSet<>();
+    private IConfigFormat format;
+    private IConfigWatcher watcher = NightConfigWatcher.INSTANCE;
+    private long journalThreshold = -1;
+    private boolean sharded = false;
 
     ConfigBuilder(Path path) throws IOException {
         this.path = path;
+        this.format = Config.getFormat(path);
         File file = path.toFile();
         if (file.exists()) {
             throwIfInvalidFile(file);
         }
     }
 
+    /**
+     * Creates a builder without a path, which can only build a {@link ConfigSchema} or an in-memory config.
+     */
+    ConfigBuilder() {
+        this.path = null;
+        this.format = TomlConfigFormat.INSTANCE;
+    }
+
     /**
      * Adds a field to the config only if it has the {@link org.infernalstudios.config.annotation.Configurable Configurable} annotation.
      * 
@@ -57,14 +84,14 @@ public final class ConfigBuilder {
      *                                  cannot be found
      */
     public ConfigBuilder loadField(Field field) throws IllegalStateException, IllegalArgumentException {
-        if (field.isAnnotationPresent(Configurable.class)) {
+        Configurable configurable = ReflectionCache.of(field).getAnnotation(Configurable.class);
+        if (configurable != null) {
             String category = Util.getCategory(field) + "." + field.getName();
             if (this.loadedElementNames.contains(category)) {
                 throw new IllegalArgumentException(String.format("Field with name \"%s\" is already loaded", category));
             }
             this.loadedElementNames.add(category);
             
-            Configurable configurable = field.getAnnotation(Configurable.class);
             IConfigElementHandler<?, ?> handler = null;
             if (!configurable.handler().isEmpty()) {
                 try {
@@ -154,12 +181,175 @@ public final class ConfigBuilder {
         return this;
     }
 
+    /**
+     * Adds all classes listed in the config index {@code id} visible to {@code classLoader},
+     * as if they were passed to {@link ConfigBuilder#loadClass(Class) loadClass}, and registers handlers for all listed
+     * {@link org.infernalstudios.config.annotation.AutoSerializable AutoSerializable} types.
+     * Only the listed classes are loaded.
+     * <p>
+     * Indexes are generated at compile time by {@code org.infernalstudios.config.processor.ConfigIndexProcessor}
+     * from the {@code processor} artifact, which must be added as an annotation processor with the option {@code -Aconfig.index=<id>}.
+     * The id keeps the index apart from the indexes of other jars on the same class loader, such as a mod id.
+     * 
+     * @param classLoader The class loader to find the index and load classes with
+     * @param id          The id the index was generated with
+     * 
+     * @throws IOException              If the index cannot be found or read
+     * @throws IllegalArgumentException If a field has the same name as another
+     *                                  already added field
+     * @throws IllegalStateException    If a listed class cannot be found, or
+     *                                  the handler for the type of a field
+     *                                  cannot be found
+     */
+    public ConfigBuilder loadIndexed(ClassLoader classLoader, String id) throws IOException, IllegalStateException, IllegalArgumentException {
+        String resource = INDEX_DIRECTORY + id + ".index";
+        Enumeration<URL> indexes = classLoader.getResources(resource);
+        if (!indexes.hasMoreElements()) {
+            throw new IOException(String.format("Could not find config index \"%s\"", resource));
+        }
+        Set<String> loaded = new HashSet<>();
+        while (indexes.hasMoreElements()) {
+            URL index = indexes.nextElement();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    int separator = line.indexOf(' ');
+                    if (separator < 0) {
+                        continue;
+                    }
+                    String kind = line.substring(0, separator);
+                    String name = line.substring(separator + 1);
+                    if (!loaded.add(line)) {
+                        continue;
+                    }
+
+                    Class<?> clazz;
+                    try {
+                        clazz = Class.forName(name, false, classLoader);
+                    } catch (ClassNotFoundException e) {
+                        throw new IllegalStateException(String.format("Could not find indexed class \"%s\"\n\tat: %s", name, index), e);
+                    }
+                    if (INDEX_CONFIGURABLE.equals(kind)) {
+                        this.loadClass(clazz);
+                    } else if (INDEX_SERIALIZABLE.equals(kind)) {
+                        Config.getHandler(clazz);
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets the file format of the config.
+     * By default, the format is chosen by the file extension, see {@link Config#getFormat(Path)}.
+     */
+    public ConfigBuilder format(IConfigFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Sets how the config file is watched for changes. By default, night-config's file watcher is used.
+     * Use {@link org.infernalstudios.config.watcher.PollingConfigWatcher PollingConfigWatcher} on file systems where it misses changes.
+     */
+    public ConfigBuilder watcher(IConfigWatcher watcher) {
+        this.watcher = watcher;
+        return this;
+    }
+
+    /**
+     * Enables the journal with a compaction threshold of 64 KiB, see {@link ConfigBuilder#journal(long)}.
+     */
+    public ConfigBuilder journal() {
+        return this.journal(64 * 1024);
+    }
+
+    /**
+     * Enables the journal, for configs that are saved often, such as after every command.
+     * <p>
+     * When only values of existing keys changed, {@link Config#save() save()} appends them to a {@code .journal} file next to the config file
+     * instead of writing the config file. The journal is replayed after reading the config file,
+     * and merged into it in the background once it is larger than {@code compactThreshold} bytes, or when the config is {@link Config#close() closed}.
+     * <p>
+     * If the config file is changed by anything else while the journal has records, such as when it is edited by hand,
+     * the journal is discarded when the file is reloaded, so the edits are not replaced by older journaled values.
+     * In-memory configs ignore this.
+     * 
+     * @throws IllegalArgumentException If the threshold is negative
+     */
+    public ConfigBuilder journal(long compactThreshold) throws IllegalArgumentException {
+        if (compactThreshold < 0) {
+            throw new IllegalArgumentException(String.format("Invalid journal compaction threshold %d", compactThreshold));
+        }
+        this.journalThreshold = compactThreshold;
+        return this;
+    }
+
+    /**
+     * Stores each top-level category in its own file next to the config file, such as {@code config.general.toml} for the category {@code general},
+     * and only values without a category in the config file itself.
+     * <p>
+     * Only files that changed are parsed again when the config is reloaded, and only files whose values changed are written when it is saved.
+     * In-memory configs ignore this.
+     */
+    public ConfigBuilder shardByCategory() {
+        this.sharded = true;
+        return this;
+    }
+
     /**
      * Creates an instance of the config class
      * 
      * @throws IOException If the file cannot be created
      */
     public Config build() throws IOException {
+        if (this.path == null) {
+            throw new IllegalStateException("Cannot build a config without a path, use buildSchema() or buildInMemory() instead");
+        }
+        List<IConfigElement<?>> elements = this.createElements();
+        prepareFile(this.path);
+        ConfigStorage storage = this.sharded
+                ? new ShardedStorage(this.path, this.format, this.watcher, ShardedStorage.getCategories(elements))
+                : new FileStorage(this.path, this.format, this.watcher);
+        Journal journal = this.journalThreshold < 0 ? null : new Journal(this.path, storage.getFiles(this.path), this.journalThreshold);
+        return new Config(this.path, this.format, storage, elements, journal);
+    }
+
+    /**
+     * Creates an instance of the config class that is not backed by any files, such as for tests or temporary configs.
+     * It is saved to and reloaded from memory, and listeners are notified the same way as for a config file.
+     * The path of this builder, if any, only identifies the config, and is never read or written.
+     * 
+     * @see Config#simulateExternalEdit(java.util.function.Consumer)
+     */
+    public Config buildInMemory() {
+        Path path = this.path != null ? this.path : MemoryStorage.DEFAULT_PATH;
+        return new Config(path, this.format, new MemoryStorage(), this.createElements());
+    }
+
+    /**
+     * Compiles the loaded fields into a schema, from which many configs with the same elements can be created.
+     * The fields themselves are only used for their metadata and default values.
+     * 
+     * @throws IllegalStateException If a field uses a handler with elements that cannot be bound to a schema
+     */
+    public ConfigSchema buildSchema() throws IllegalStateException {
+        return new ConfigSchema(this.createElements());
+    }
+
+    /**
+     * Compiles the loaded fields into a schema, and binds every file in {@code directory} matching {@code glob} to a config created from it,
+     * see {@link ConfigSchema#watchDirectory(Path, String)}. The path, format, watcher and journal of this builder are not used.
+     *
+     * @throws IOException If the directory cannot be created or watched, or a config cannot be created for an existing file
+     */
+    public ConfigDirectory buildDirectory(Path directory, String glob) throws IOException {
+        return this.buildSchema().watchDirectory(directory, glob);
+    }
+
+    private List<IConfigElement<?>> createElements() {
         List<IConfigElement<?>> elements = new ArrayList<>(this.elements.size());
         for (Pair<Field, IConfigElementHandler<?, ?>> pair : this.elements) {
             pair.getLeft().setAccessible(true);
@@ -169,23 +359,24 @@ public final class ConfigBuilder {
                 throw new RuntimeException(String.format("Could not create config element for field \"%s\"", pair.getLeft().getName()), e);
             }
         }
+        return elements;
+    }
 
-        CommentedFileConfig config = CommentedFileConfig
-            .builder(this.path, TomlFormat.instance())
-            .concurrent()
-            .sync()
-            .build();
-
-        File file = this.path.toFile();
+    /**
+     * Creates the file at {@code path} if it does not exist.
+     * 
+     * @throws IOException If the file cannot be created, or is not a readable and writable file
+     */
+    static void prepareFile(Path path) throws IOException {
+        File file = path.toFile();
         if (!file.exists()) {
             try {
                 file.createNewFile();
             } catch (IOException e) {
-                throw new IOException(String.format("Could not create file \"%s\"", this.path), e);
+                throw new IOException(String.format("Could not create file \"%s\"", path), e);
             }
         }
         throwIfInvalidFile(file);
-        return new Config(config, elements);
     }
 
     private static void throwIfInvalidFile(File file) throws IOException {
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * A change of the value of a single config element.
+ */
+public final class ConfigChange {
+    private final IConfigElement<?> element;
+    @Nullable
+    private final Object oldValue;
+    @Nullable
+    private final Object newValue;
+    private final long generation;
+
+    public ConfigChange(IConfigElement<?> element, @Nullable Object oldValue, @Nullable Object newValue, long generation) {
+        this.element = element;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.generation = generation;
+    }
+
+    public IConfigElement<?> getElement() {
+        return element;
+    }
+
+    /**
+     * Returns the value before the change. This is null for the first load of the config.
+     */
+    @Nullable
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    @Nullable
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Returns the {@link Config#getGeneration() generation} of the config this change was observed in.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s -> %s", this.element.getName(), this.oldValue, this.newValue);
+    }
+}
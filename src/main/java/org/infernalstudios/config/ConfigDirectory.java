@@ -0,0 +1,363 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+import org.infernalstudios.config.watcher.IConfigWatcher;
+
+/**
+ * Binds every file in a directory that matches a glob to a config created from a shared {@link ConfigSchema},
+ * such as one config file per dimension that is added while the game is running.
+ * <p>
+ * The directory is watched with a single {@link WatchService} registration on one thread, instead of one watch per file.
+ * Files that are created are bound to a new config once they stopped changing, so files that are still being written or copied are not read early.
+ * Changed files are reloaded, and configs of deleted files are closed and removed.
+ * Sidecar files of the configs are watched through the same registration.
+ * Files named {@code <config>.<name>.<ext>} next to a bound {@code <config>.<ext>}, such as sidecar chunks and category shards,
+ * belong to that config and are never bound themselves, even if the glob matches them.
+ */
+public final class ConfigDirectory implements AutoCloseable {
+    /**
+     * How long the size and modification time of a new file must stay the same before it is bound.
+     */
+    private static final long SETTLE_MILLIS = 500;
+
+    private final ConfigSchema schema;
+    private final Path directory;
+    private final PathMatcher matcher;
+    private final WatchService watchService;
+    private final Map<Path, Config> configs = new ConcurrentHashMap<>();
+    private final Map<Path, Runnable> watches = new ConcurrentHashMap<>();
+    /**
+     * New files that are not bound until they stopped changing, only used by the watcher thread.
+     */
+    private final Map<Path, FileState> pending = new HashMap<>();
+    private final List<Consumer<Config>> addListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Config>> removeListeners = new CopyOnWriteArrayList<>();
+    private final IConfigWatcher watcher = new IConfigWatcher() {
+        @Override
+        public void addWatch(Path path, Runnable onChange) {
+            ConfigDirectory.this.watches.put(normalize(path), onChange);
+        }
+
+        @Override
+        public void removeWatch(Path path) {
+            ConfigDirectory.this.watches.remove(normalize(path));
+        }
+    };
+    private final Thread thread;
+
+    /**
+     * @throws IOException If the directory cannot be created or watched, or a config cannot be created for an existing file
+     */
+    ConfigDirectory(ConfigSchema schema, Path directory, String glob) throws IOException {
+        this.schema = schema;
+        this.directory = normalize(directory);
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        Files.createDirectories(this.directory);
+        this.watchService = this.directory.getFileSystem().newWatchService();
+        try {
+            this.directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            this.scan(true);
+        } catch (IOException | RuntimeException e) {
+            // Closes the watch service and any configs that were already created
+            try {
+                this.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        this.thread = new Thread(this::watch, "Config Directory Watcher: " + this.directory.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Returns all configs by their path.
+     */
+    public Map<Path, Config> getConfigs() {
+        return Collections.unmodifiableMap(this.configs);
+    }
+
+    /**
+     * Returns the config bound to the file at {@code path}, or null if there is none.
+     */
+    @Nullable
+    public Config get(Path path) {
+        return this.configs.get(normalize(path));
+    }
+
+    /**
+     * Adds a listener that is notified with every config that is created for a new file.
+     */
+    public void onAdded(Consumer<Config> listener) {
+        this.addListeners.add(listener);
+    }
+
+    /**
+     * Adds a listener that is notified with every config that is removed, after it was closed.
+     */
+    public void onRemoved(Consumer<Config> listener) {
+        this.removeListeners.add(listener);
+    }
+
+    /**
+     * Stops watching the directory, and closes all configs.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.watchService.close();
+        for (Config config : this.configs.values()) {
+            config.close();
+        }
+        this.configs.clear();
+    }
+
+    /**
+     * Handles every file in the directory, binding new files right away if {@code settled} is true, such as before the directory was watched.
+     */
+    private synchronized void scan(boolean settled) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+            for (Path path : stream) {
+                paths.add(normalize(path));
+            }
+        }
+        // Configs are bound before the files that belong to them, which always have longer names
+        paths.sort(Comparator.comparingInt(path -> path.getFileName().toString().length()));
+        for (Path path : paths) {
+            if (settled) {
+                this.bind(path);
+            } else {
+                this.changed(path);
+            }
+        }
+    }
+
+    private void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = this.pending.isEmpty() ? this.watchService.take() : this.watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            if (key != null) {
+                this.handleEvents(key);
+            }
+            this.bindSettled();
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        // Several events for the same file are often reported together, and only need to be handled once
+        Map<Path, WatchEvent.Kind<?>> events = new LinkedHashMap<>();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                events.put(this.directory.resolve((Path) event.context()), event.kind());
+            }
+        }
+        key.reset();
+
+        try {
+            if (overflow) {
+                this.scan(false);
+            }
+            for (Map.Entry<Path, WatchEvent.Kind<?>> event : events.entrySet()) {
+                if (event.getValue() == StandardWatchEventKinds.ENTRY_DELETE) {
+                    this.deleted(event.getKey());
+                } else {
+                    this.changed(event.getKey());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println(String.format("Error while handling changes in directory \"%s\".", this.directory));
+            e.printStackTrace();
+        }
+    }
+
+    private void changed(Path path) throws IOException {
+        Runnable onChange = this.watches.get(path);
+        if (onChange != null) {
+            onChange.run();
+            return;
+        }
+        if (!this.isUnbound(path)) {
+            return;
+        }
+        // New files are often still being written or copied, so they are only bound once they stopped changing
+        FileState state = FileState.of(path);
+        if (state != null && !state.equals(this.pending.get(path))) {
+            this.pending.put(path, state);
+        }
+    }
+
+    /**
+     * Binds all new files whose size and modification time did not change for {@link #SETTLE_MILLIS}.
+     */
+    private void bindSettled() {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Path, FileState>> iterator = this.pending.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry<Path, FileState> entry = iterator.next();
+            FileState state = FileState.of(entry.getKey());
+            if (state == null) {
+                iterator.remove();
+            } else if (!state.equals(entry.getValue())) {
+                entry.setValue(state);
+            } else if (now - state.since >= TimeUnit.MILLISECONDS.toNanos(SETTLE_MILLIS)) {
+                iterator.remove();
+                try {
+                    this.bind(entry.getKey());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println(String.format("Could not create config for file \"%s\".", entry.getKey()));
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void bind(Path path) throws IOException {
+        Config config;
+        synchronized (this) {
+            if (!this.isUnbound(path)) {
+                return;
+            }
+            config = this.schema.create(path, Config.getFormat(path), this.watcher);
+            this.configs.put(path, config);
+        }
+        for (Consumer<Config> listener : this.addListeners) {
+            listener.accept(config);
+        }
+    }
+
+    private void deleted(Path path) {
+        Config config;
+        synchronized (this) {
+            config = this.configs.remove(path);
+            if (config == null) {
+                this.pending.remove(path);
+                Runnable onChange = this.watches.get(path);
+                if (onChange != null) {
+                    onChange.run();
+                }
+                return;
+            }
+            config.close();
+        }
+        for (Consumer<Config> listener : this.removeListeners) {
+            listener.accept(config);
+        }
+    }
+
+    /**
+     * Returns true if {@code path} is a file that matches the glob, and is not bound yet or belongs to a bound config.
+     */
+    private boolean isUnbound(Path path) {
+        return !this.configs.containsKey(path) && Files.isRegularFile(path) && this.matcher.matches(path.getFileName()) && !this.isOwned(path);
+    }
+
+    /**
+     * Returns true if {@code path} is named like a file of a bound config, {@code <config>.<name>.<ext>}.
+     */
+    private boolean isOwned(Path path) {
+        String fileName = path.getFileName().toString();
+        for (Path owner : this.configs.keySet()) {
+            String ownerName = owner.getFileName().toString();
+            int index = ownerName.lastIndexOf('.');
+            String baseName = (index < 0 ? ownerName : ownerName.substring(0, index)) + ".";
+            String extension = index < 0 ? "" : ownerName.substring(index);
+            if (fileName.length() > baseName.length() + extension.length() && fileName.startsWith(baseName) && fileName.endsWith(extension)
+                    && path.getParent().equals(owner.getParent())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * The size and modification time of a new file, and when they were first seen.
+     */
+    private static final class FileState {
+        private final long size;
+        private final long modified;
+        private final long since = System.nanoTime();
+
+        private FileState(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        /**
+         * Returns the state of the file at {@code path}, or null if it cannot be read, such as when it was deleted.
+         */
+        @Nullable
+        private static FileState of(Path path) {
+            try {
+                return new FileState(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof FileState state && state.size == this.size && state.modified == this.modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.size) * 31 + Long.hashCode(this.modified);
+        }
+    }
+}
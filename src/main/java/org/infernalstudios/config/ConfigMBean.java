@@ -0,0 +1,200 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.Descriptor;
+import javax.management.DynamicMBean;
+import javax.management.ImmutableDescriptor;
+import javax.management.InvalidAttributeValueException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.element.NumberConfigElement;
+import org.infernalstudios.config.element.handler.IConfigElementHandler;
+
+/**
+ * Exposes the values of a config, and its {@link ConfigStatistics statistics}, to JMX tools, see {@link Config#registerMBean()}.
+ * <p>
+ * Every element is an attribute named after the element, with its serialized value.
+ * Elements serialized to strings, numbers or booleans are writable, other elements are shown as read-only strings.
+ * Setting several attributes at once applies them in one {@link Config#batch(java.util.function.Consumer) batch}.
+ */
+final class ConfigMBean implements DynamicMBean {
+    private static final String STATISTICS = "statistics.";
+    private static final Set<Class<?>> WRITABLE_TYPES = Set.of(String.class, Boolean.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class);
+
+    private final Config config;
+    private final Map<String, IConfigElement<?>> elements = new HashMap<>();
+    private final MBeanInfo info;
+
+    @SuppressWarnings("unchecked")
+    ConfigMBean(Config config) {
+        this.config = config;
+
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (int i = 0; i < config.getElementCount(); i++) {
+            IConfigElement<Object> element = (IConfigElement<Object>) config.getElement(i);
+            this.elements.put(element.getName(), element);
+
+            Object value = element.getTypeHandler().serialize(element);
+            boolean writable = value != null && WRITABLE_TYPES.contains(value.getClass());
+            String type = writable ? value.getClass().getName() : String.class.getName();
+            attributes.add(new MBeanAttributeInfo(element.getName(), type, element.getComment().strip(), true, writable, false, ConfigMBean.describe(element)));
+        }
+        attributes.add(statistic("reloadCount", "long", "How many times the config was reloaded"));
+        attributes.add(statistic("averageReloadMillis", "double", "The average time a reload took, in milliseconds"));
+        attributes.add(statistic("maxReloadMillis", "double", "The longest time a reload took, in milliseconds"));
+        attributes.add(statistic("saveCount", "long", "How many times the config was saved"));
+        attributes.add(statistic("averageSaveMillis", "double", "The average time a save took, in milliseconds"));
+        attributes.add(statistic("maxSaveMillis", "double", "The longest time a save took, in milliseconds"));
+        attributes.add(statistic("writeCount", "long", "How many saves wrote to the config file"));
+        attributes.add(statistic("generation", "long", "The current generation of the config"));
+
+        MBeanOperationInfo[] operations = {
+            new MBeanOperationInfo("reload", "Reloads the config from its file", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION),
+            new MBeanOperationInfo("save", "Saves the config to its file", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)
+        };
+        this.info = new MBeanInfo(Config.class.getName(), "Config " + config.getPath(), attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+
+    private static Descriptor describe(IConfigElement<?> element) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("elementType", element.getType().getName());
+        if (element instanceof NumberConfigElement<?> number) {
+            fields.put("minValue", number.getMin());
+            fields.put("maxValue", number.getMax());
+        }
+        return new ImmutableDescriptor(fields);
+    }
+
+    private static MBeanAttributeInfo statistic(String name, String type, String description) {
+        return new MBeanAttributeInfo(STATISTICS + name, type, description, true, false, false);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        IConfigElement<Object> element = (IConfigElement<Object>) this.elements.get(attribute);
+        if (element != null) {
+            Object value = element.getTypeHandler().serialize(element);
+            return value == null || WRITABLE_TYPES.contains(value.getClass()) ? value : value.toString();
+        }
+        ConfigStatistics statistics = this.config.getStatistics();
+        return switch (attribute) {
+            case STATISTICS + "reloadCount" -> statistics.getReloadCount();
+            case STATISTICS + "averageReloadMillis" -> statistics.getAverageReloadMillis();
+            case STATISTICS + "maxReloadMillis" -> statistics.getMaxReloadNanos() / 1_000_000D;
+            case STATISTICS + "saveCount" -> statistics.getSaveCount();
+            case STATISTICS + "averageSaveMillis" -> statistics.getAverageSaveMillis();
+            case STATISTICS + "maxSaveMillis" -> statistics.getMaxSaveNanos() / 1_000_000D;
+            case STATISTICS + "writeCount" -> statistics.getWriteCount();
+            case STATISTICS + "generation" -> this.config.getGeneration();
+            default -> throw new AttributeNotFoundException(String.format("Config has no attribute \"%s\"", attribute));
+        };
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException {
+        AttributeList attributes = new AttributeList();
+        attributes.add(attribute);
+        this.setAll(attributes);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        // Read while no reload or save runs, so all values are from the same point in time
+        return this.config.consistentRead(() -> {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, this.getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Missing attributes are left out, as specified by DynamicMBean
+                }
+            }
+            return list;
+        });
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        try {
+            this.setAll(attributes);
+        } catch (AttributeNotFoundException | InvalidAttributeValueException e) {
+            // None were applied
+            return new AttributeList();
+        }
+        return this.getAttributes(attributes.asList().stream().map(Attribute::getName).toArray(String[]::new));
+    }
+
+    /**
+     * Deserializes all values, and applies them in one batch, or none of them if any is invalid.
+     */
+    @SuppressWarnings("unchecked")
+    private void setAll(AttributeList attributes) throws AttributeNotFoundException, InvalidAttributeValueException {
+        Map<IConfigElement<Object>, Object> values = new HashMap<>();
+        for (Attribute attribute : attributes.asList()) {
+            IConfigElement<Object> element = (IConfigElement<Object>) this.elements.get(attribute.getName());
+            if (element == null) {
+                throw new AttributeNotFoundException(String.format("Config has no writable attribute \"%s\"", attribute.getName()));
+            }
+            IConfigElementHandler<Object, Object> handler = (IConfigElementHandler<Object, Object>) element.getTypeHandler();
+            Object value = attribute.getValue();
+            if (value == null || !handler.canHandle(value.getClass())) {
+                throw new InvalidAttributeValueException(String.format("Value \"%s\" cannot be used for \"%s\"", value, element.getName()));
+            }
+            values.put(element, handler.deserialize(element, value));
+        }
+        try {
+            this.config.batch(transaction -> {
+                for (Map.Entry<IConfigElement<Object>, Object> entry : values.entrySet()) {
+                    transaction.set(entry.getKey(), entry.getValue());
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            throw new InvalidAttributeValueException(e.getMessage());
+        }
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        switch (actionName) {
+            case "reload" -> this.config.reload();
+            case "save" -> this.config.save();
+            default -> throw new ReflectionException(new NoSuchMethodException(actionName), String.format("Config has no operation \"%s\"", actionName));
+        }
+        return null;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return this.info;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.infernalstudios.config.element.ConfigElement;
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.format.IConfigFormat;
+import org.infernalstudios.config.format.TomlConfigFormat;
+import org.infernalstudios.config.watcher.IConfigWatcher;
+import org.infernalstudios.config.watcher.NightConfigWatcher;
+
+/**
+ * The elements of a config compiled once from its classes, from which any number of {@link Config}s with the same elements can be created.
+ * <p>
+ * Configs created from a schema do not use the static fields of the classes, each stores its values in its own array.
+ * Names, handlers, defaults, ranges and comments are shared with the schema, as are the split element names and the schema hash,
+ * so creating a config only allocates the value array and lightweight copies of the elements bound to it.
+ */
+public final class ConfigSchema {
+    private final List<ConfigElement<?>> elements;
+    private final List<String>[] paths;
+    private final int schemaHash;
+
+    ConfigSchema(List<IConfigElement<?>> elements) throws IllegalStateException {
+        List<ConfigElement<?>> templates = new ArrayList<>(elements.size());
+        for (IConfigElement<?> element : elements) {
+            if (!(element instanceof ConfigElement<?> configElement)) {
+                throw new IllegalStateException(String.format("Element \"%s\" of type %s cannot be used in a schema, as it does not extend %s",
+                        element.getName(), element.getClass().getName(), ConfigElement.class.getName()));
+            }
+            templates.add(configElement);
+        }
+        this.elements = Collections.unmodifiableList(templates);
+        this.paths = Config.splitPaths(templates);
+        this.schemaHash = Config.computeSchemaHash(templates);
+    }
+
+    /**
+     * Creates a builder to load fields into, and compile with {@link ConfigBuilder#buildSchema()}.
+     */
+    public static ConfigBuilder builder() {
+        return new ConfigBuilder();
+    }
+
+    /**
+     * Compiles a schema from all public static fields with the
+     * {@link org.infernalstudios.config.annotation.Configurable Configurable}
+     * annotation in the given class, see {@link ConfigBuilder#loadClass(Class)}.
+     */
+    public static ConfigSchema compile(Class<?> clazz) throws IllegalStateException, IllegalArgumentException {
+        return ConfigSchema.builder().loadClass(clazz).buildSchema();
+    }
+
+    /**
+     * Returns the elements of this schema. Their values are not used by configs created from the schema.
+     */
+    public Iterator<IConfigElement<?>> getElements() {
+        return Collections.<IConfigElement<?>>unmodifiableList(this.elements).iterator();
+    }
+
+    public int size() {
+        return this.elements.size();
+    }
+
+    /**
+     * Creates a config from this schema, with the format chosen by the file extension.
+     * 
+     * @throws IOException If the file cannot be created
+     */
+    public Config create(Path path) throws IOException {
+        return this.create(path, Config.getFormat(path));
+    }
+
+    /**
+     * Creates a config from this schema.
+     * 
+     * @throws IOException If the file cannot be created
+     */
+    public Config create(Path path, IConfigFormat format) throws IOException {
+        return this.create(path, format, NightConfigWatcher.INSTANCE);
+    }
+
+    /**
+     * Creates a config from this schema, watched for changes by {@code watcher}.
+     * 
+     * @throws IOException If the file cannot be created
+     */
+    public Config create(Path path, IConfigFormat format, IConfigWatcher watcher) throws IOException {
+        ConfigBuilder.prepareFile(path);
+        return new Config(path, format, new FileStorage(path, format, watcher), this.bind(), null, this.paths, this.schemaHash);
+    }
+
+    /**
+     * Creates a config from this schema that is not backed by any files, see {@link ConfigBuilder#buildInMemory()}.
+     */
+    public Config createInMemory() {
+        return new Config(MemoryStorage.DEFAULT_PATH, TomlConfigFormat.INSTANCE, new MemoryStorage(), this.bind(), null, this.paths, this.schemaHash);
+    }
+
+    /**
+     * Creates a config from this schema for every file in {@code directory} whose name matches {@code glob}, such as {@code "*.toml"},
+     * and for every matching file that is created later, see {@link ConfigDirectory}.
+     *
+     * @throws IOException If the directory cannot be created or watched, or a config cannot be created for an existing file
+     */
+    public ConfigDirectory watchDirectory(Path directory, String glob) throws IOException {
+        return new ConfigDirectory(this, directory, glob);
+    }
+
+    /**
+     * Creates copies of all elements bound to a new value array.
+     */
+    List<IConfigElement<?>> bind() {
+        Object[] values = new Object[this.elements.size()];
+        List<IConfigElement<?>> elements = new ArrayList<>(values.length);
+        for (int i = 0; i < values.length; i++) {
+            elements.add(this.elements.get(i).bind(values, i));
+        }
+        return elements;
+    }
+}
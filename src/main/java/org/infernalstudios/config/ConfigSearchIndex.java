@@ -0,0 +1,236 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.infernalstudios.config.annotation.Configurable;
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.util.ReflectionCache;
+
+/**
+ * Searches the elements of many configs by their names, categories, translation keys and descriptions.
+ * <p>
+ * All words of these are indexed once when a config is {@link ConfigSearchIndex#add(Config) added}, in a sorted map from word to elements,
+ * so every word of a query is looked up as a prefix with a range scan instead of by going through all elements.
+ * Words are split at non-alphanumeric characters and camel case humps, so {@code maxPlayers} is found by {@code max}, {@code players} and {@code maxplayers}.
+ * <p>
+ * Indexed text does not change when a config is reloaded, so the index only has to be updated when configs are added or removed.
+ * Searching is safe while the index is updated.
+ */
+public final class ConfigSearchIndex {
+    private static final int NAME = 8;
+    private static final int CATEGORY = 4;
+    private static final int TRANSLATION_KEY = 4;
+    private static final int DESCRIPTION = 1;
+
+    private final ConcurrentSkipListMap<String, Map<Result, Integer>> words = new ConcurrentSkipListMap<>();
+    private final Map<Config, List<Result>> configs = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes all elements of {@code config}. Does nothing if it was already added.
+     */
+    public synchronized void add(Config config) {
+        if (this.configs.containsKey(config)) {
+            return;
+        }
+        List<Result> results = new ArrayList<>();
+        for (Iterator<IConfigElement<?>> iterator = config.getElements(); iterator.hasNext(); ) {
+            IConfigElement<?> element = iterator.next();
+            Result result = new Result(config, element);
+            results.add(result);
+            Map<String, Integer> weights = new HashMap<>();
+            index(weights, element.getField() == null ? element.getName() : element.getField().getName(), NAME);
+            index(weights, element.getCategory(), CATEGORY);
+            index(weights, element.getTranslationKey(), TRANSLATION_KEY);
+            index(weights, getDescription(element), DESCRIPTION);
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                this.words.computeIfAbsent(entry.getKey(), word -> new ConcurrentHashMap<>()).put(result, entry.getValue());
+            }
+        }
+        this.configs.put(config, results);
+    }
+
+    /**
+     * Removes all elements of {@code config} from the index.
+     */
+    public synchronized void remove(Config config) {
+        List<Result> results = this.configs.remove(config);
+        if (results == null) {
+            return;
+        }
+        Set<Result> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(results);
+        for (Iterator<Map<Result, Integer>> iterator = this.words.values().iterator(); iterator.hasNext(); ) {
+            Map<Result, Integer> postings = iterator.next();
+            postings.keySet().removeAll(removed);
+            if (postings.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the elements matching every word of {@code query} as a prefix, best matches first.
+     * Matches in names rank above categories and translation keys, which rank above descriptions, and whole words rank above prefixes.
+     *
+     * @param limit The maximum number of results
+     */
+    public List<Result> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, terms);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Result, Integer> scores = null;
+        for (String term : terms) {
+            Map<Result, Integer> matches = new HashMap<>();
+            for (Map.Entry<String, Map<Result, Integer>> entry : this.words.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                int multiplier = entry.getKey().length() == term.length() ? 2 : 1;
+                for (Map.Entry<Result, Integer> posting : entry.getValue().entrySet()) {
+                    if (scores == null || scores.containsKey(posting.getKey())) {
+                        matches.merge(posting.getKey(), posting.getValue() * multiplier, Math::max);
+                    }
+                }
+            }
+            if (scores != null) {
+                for (Map.Entry<Result, Integer> match : matches.entrySet()) {
+                    match.setValue(match.getValue() + scores.get(match.getKey()));
+                }
+            }
+            scores = matches;
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<Result, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int compare = Integer.compare(b.getValue(), a.getValue());
+            return compare != 0 ? compare : a.getKey().getElement().getName().compareTo(b.getKey().getElement().getName());
+        });
+        List<Result> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            Map.Entry<Result, Integer> entry = ranked.get(i);
+            results.add(new Result(entry.getKey(), entry.getValue()));
+        }
+        return results;
+    }
+
+    private static String getDescription(IConfigElement<?> element) {
+        if (element.getField() != null) {
+            Configurable configurable = ReflectionCache.of(element.getField()).getAnnotation(Configurable.class);
+            if (configurable != null) {
+                return configurable.description();
+            }
+        }
+        String comment = element.getComment();
+        return comment == null ? "" : comment;
+    }
+
+    private static void index(Map<String, Integer> weights, String text, int weight) {
+        Set<String> words = new LinkedHashSet<>();
+        tokenize(text, words);
+        for (String word : words) {
+            weights.merge(word, weight, Math::max);
+        }
+    }
+
+    /**
+     * Adds the lower case words of {@code text} to {@code words}, including each camel case hump of a word.
+     */
+    static void tokenize(String text, Set<String> words) {
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (start < 0) {
+                    start = i;
+                }
+                continue;
+            }
+            if (start >= 0) {
+                String word = text.substring(start, i);
+                words.add(word.toLowerCase(Locale.ROOT));
+                int hump = 0;
+                for (int j = 1; j < word.length(); j++) {
+                    if (Character.isUpperCase(word.charAt(j)) && !Character.isUpperCase(word.charAt(j - 1))) {
+                        words.add(word.substring(hump, j).toLowerCase(Locale.ROOT));
+                        hump = j;
+                    }
+                }
+                if (hump > 0) {
+                    words.add(word.substring(hump).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * An element found by a search, with the config it belongs to.
+     */
+    public static final class Result {
+        private final Config config;
+        private final IConfigElement<?> element;
+        private final int score;
+
+        private Result(Config config, IConfigElement<?> element) {
+            this.config = config;
+            this.element = element;
+            this.score = 0;
+        }
+
+        private Result(Result result, int score) {
+            this.config = result.config;
+            this.element = result.element;
+            this.score = score;
+        }
+
+        public Config getConfig() {
+            return this.config;
+        }
+
+        public IConfigElement<?> getElement() {
+            return this.element;
+        }
+
+        /**
+         * Returns how well the element matched the query, higher is better.
+         */
+        public int getScore() {
+            return this.score;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d)", this.element.getName(), this.score);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the reloads and saves of a config, and how long they took, see {@link Config#getStatistics()}.
+ * Times include notifying listeners, and saves include writing the file.
+ */
+public final class ConfigStatistics {
+    private final LongAdder reloadCount = new LongAdder();
+    private final LongAdder reloadNanos = new LongAdder();
+    private final AtomicLong maxReloadNanos = new AtomicLong();
+    private final LongAdder saveCount = new LongAdder();
+    private final LongAdder saveNanos = new LongAdder();
+    private final AtomicLong maxSaveNanos = new AtomicLong();
+    private final LongAdder writeCount = new LongAdder();
+
+    ConfigStatistics() {
+    }
+
+    void recordReload(long nanos) {
+        this.reloadCount.increment();
+        this.reloadNanos.add(nanos);
+        this.maxReloadNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void recordSave(long nanos) {
+        this.saveCount.increment();
+        this.saveNanos.add(nanos);
+        this.maxSaveNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void recordWrite() {
+        this.writeCount.increment();
+    }
+
+    public long getReloadCount() {
+        return this.reloadCount.sum();
+    }
+
+    public long getReloadNanos() {
+        return this.reloadNanos.sum();
+    }
+
+    public long getMaxReloadNanos() {
+        return this.maxReloadNanos.get();
+    }
+
+    public double getAverageReloadMillis() {
+        long count = this.getReloadCount();
+        return count == 0 ? 0 : this.getReloadNanos() / 1_000_000D / count;
+    }
+
+    public long getSaveCount() {
+        return this.saveCount.sum();
+    }
+
+    public long getSaveNanos() {
+        return this.saveNanos.sum();
+    }
+
+    public long getMaxSaveNanos() {
+        return this.maxSaveNanos.get();
+    }
+
+    public double getAverageSaveMillis() {
+        long count = this.getSaveCount();
+        return count == 0 ? 0 : this.getSaveNanos() / 1_000_000D / count;
+    }
+
+    /**
+     * Returns how many saves wrote to the config file or its journal, instead of finding nothing that changed.
+     */
+    public long getWriteCount() {
+        return this.writeCount.sum();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Where the files of a {@link Config} are stored, and how they are watched for changes.
+ */
+interface ConfigStorage {
+    boolean exists(Path path);
+
+    /**
+     * Reads the file at {@code path}. A missing file results in an empty config.
+     * @throws java.io.UncheckedIOException If the file cannot be read
+     */
+    CommentedConfig read(Path path);
+
+    /**
+     * @throws java.io.UncheckedIOException If the file cannot be written
+     */
+    void write(Path path, UnmodifiableConfig config);
+
+    /**
+     * Writes {@code config}, where only the values in {@code changes} differ from what was last read or written,
+     * or anything may differ if {@code changes} is null. Storages may use this to only patch the changed values.
+     * @throws java.io.UncheckedIOException If the file cannot be written
+     */
+    default void write(Path path, UnmodifiableConfig config, @Nullable Map<String, Object> changes) {
+        this.write(path, config);
+    }
+
+    void delete(Path path);
+
+    /**
+     * Returns all files the config at {@code path} is stored in.
+     */
+    default List<Path> getFiles(Path path) {
+        return Collections.singletonList(path);
+    }
+
+    /**
+     * Runs {@code onChange} whenever the file at {@code path} is changed by someone else.
+     */
+    void watch(Path path, Runnable onChange);
+
+    void unwatch(Path path);
+
+    /**
+     * Stops watching all files.
+     */
+    void close();
+}
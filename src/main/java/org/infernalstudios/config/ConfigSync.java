@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.element.handler.IConfigElementHandler;
+import org.infernalstudios.config.util.BinaryValues;
+import org.infernalstudios.config.util.Pair;
+
+/**
+ * Encodes config values into a compact binary form for synchronizing them to another {@link Config}, such as from a server to its clients.
+ * <p>
+ * Elements are identified by their ordinal in the config instead of their name, so both configs must be built from the same classes, in the same order.
+ * This is checked by {@link ConfigSync#decode(Config, byte[]) decode} using a hash of the element names and types.
+ */
+public final class ConfigSync {
+    private ConfigSync() {}
+
+    private static final byte VERSION = 1;
+
+    /**
+     * Encodes the values of all elements of {@code config}.
+     */
+    public static byte[] encode(Config config) {
+        return ConfigSync.encode(config, 0);
+    }
+
+    /**
+     * Encodes the values of the elements of {@code config} that have changed after the generation {@code since}.
+     * The generation the encoded values belong to is included, and returned by {@link ConfigSync#decode(Config, byte[]) decode},
+     * so it can be passed back in for the next delta.
+     * Values changed with {@link IConfigElement#set(Object) set()} are only included after {@link Config#pollChanges()}.
+     *
+     * @see Config#getGeneration()
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(Config config, long since) {
+        long generation = config.getGeneration();
+        List<IConfigElement<Object>> changed = new ArrayList<>();
+        List<Integer> ordinals = new ArrayList<>();
+        for (int i = 0; i < config.getElementCount(); i++) {
+            if (config.getModifiedGeneration(i) > since) {
+                changed.add((IConfigElement<Object>) config.getElement(i));
+                ordinals.add(i);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(config.getSchemaHash());
+            BinaryValues.writeVarLong(out, generation);
+            BinaryValues.writeVarInt(out, changed.size());
+            for (int i = 0; i < changed.size(); i++) {
+                IConfigElement<Object> element = changed.get(i);
+                BinaryValues.writeVarInt(out, ordinals.get(i));
+                BinaryValues.writeValue(out, ((IConfigElementHandler<Object, ?>) element.getTypeHandler()).serialize(element));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes values encoded by {@link ConfigSync#encode(Config, long) encode}, and applies them to {@code config}.
+     * Reload listeners are notified as if the config was reloaded.
+     *
+     * @return The generation of the config the values were encoded from.
+     * @throws IOException If the data is malformed, or was encoded from a config with different elements.
+     */
+    public static long decode(Config config, byte[] data) throws IOException {
+        List<Pair<IConfigElement<?>, Object>> values = new ArrayList<>();
+        long generation;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported sync data version %d", version));
+            }
+            int schemaHash = in.readInt();
+            if (schemaHash != config.getSchemaHash()) {
+                throw new IOException("Sync data was encoded from a config with different elements");
+            }
+            generation = BinaryValues.readVarLong(in);
+            int count = BinaryValues.readVarInt(in);
+            for (int i = 0; i < count; i++) {
+                int ordinal = BinaryValues.readVarInt(in);
+                if (ordinal < 0 || ordinal >= config.getElementCount()) {
+                    throw new IOException(String.format("Element ordinal %d is out of bounds", ordinal));
+                }
+                values.add(Pair.of(config.getElement(ordinal), BinaryValues.readValue(in)));
+            }
+        }
+        config.apply(values);
+        return generation;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Stages values to be applied together by {@link Config#batch(java.util.function.Consumer) Config.batch}.
+ */
+public final class ConfigTransaction {
+    private final Config config;
+    private final Map<IConfigElement<?>, Object> values = new LinkedHashMap<>();
+
+    ConfigTransaction(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * Stages a new value for {@code element}. If the given value is null, the value will be cleared.
+     * Staging a value for the same element twice replaces the previously staged value.
+     * 
+     * @throws IllegalArgumentException If the element does not belong to the config
+     */
+    public <T> ConfigTransaction set(IConfigElement<T> element, @Nullable T value) throws IllegalArgumentException {
+        if (this.config.getOrdinal(element) < 0) {
+            throw new IllegalArgumentException(String.format("Element \"%s\" does not belong to this config", element.getName()));
+        }
+        this.values.put(element, value);
+        return this;
+    }
+
+    Map<IConfigElement<?>, Object> getValues() {
+        return this.values;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * A value computed from the values of some elements, such as a lookup table built from a list,
+ * that is only computed again after one of those elements changed, see {@link Config#derive(Supplier, IConfigElement...)}.
+ * <p>
+ * Changes are detected when the value is requested, by comparing the values of the source elements to the ones it was last computed from,
+ * so values set directly with {@link IConfigElement#set(Object) set()} are noticed as well as reloads.
+ * The value is computed at most once per change, even if many threads request it at the same time.
+ */
+public final class DerivedValue<T> implements Supplier<T> {
+    private final Supplier<T> function;
+    private final IConfigElement<?>[] sources;
+    @Nullable
+    private volatile Computed<T> computed;
+
+    DerivedValue(Supplier<T> function, IConfigElement<?>[] sources) {
+        this.function = function;
+        this.sources = sources;
+    }
+
+    /**
+     * Returns the derived value, computing it first if any source element changed since it was last computed.
+     */
+    @Override
+    public T get() {
+        Computed<T> computed = this.computed;
+        if (computed != null && computed.isSame(this.sources)) {
+            return computed.value;
+        }
+        synchronized (this) {
+            computed = this.computed;
+            Object[] inputs = new Object[this.sources.length];
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = this.sources[i].get();
+            }
+            if (computed != null && computed.isEqual(inputs)) {
+                // Reloading creates new but equal values, which do not need the value to be computed again
+                this.computed = new Computed<>(inputs, computed.value);
+                return computed.value;
+            }
+            // The inputs are read before computing, so a change while computing is noticed on the next call
+            T value = this.function.get();
+            this.computed = new Computed<>(inputs, value);
+            return value;
+        }
+    }
+
+    /**
+     * Discards the derived value, so it is computed again the next time it is requested.
+     */
+    public void invalidate() {
+        this.computed = null;
+    }
+
+    private static final class Computed<T> {
+        private final Object[] inputs;
+        private final T value;
+
+        private Computed(Object[] inputs, T value) {
+            this.inputs = inputs;
+            this.value = value;
+        }
+
+        private boolean isSame(IConfigElement<?>[] sources) {
+            for (int i = 0; i < this.inputs.length; i++) {
+                if (sources[i].get() != this.inputs[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isEqual(Object[] inputs) {
+            for (int i = 0; i < this.inputs.length; i++) {
+                if (!Objects.equals(inputs[i], this.inputs[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.format.IConfigFormat;
+import org.infernalstudios.config.util.annotation.Nullable;
+import org.infernalstudios.config.watcher.IConfigWatcher;
+
+/**
+ * Stores config files on disk in the given format, and watches them with the given watcher.
+ * <p>
+ * The contents of the main config file are kept after reading or writing it,
+ * so later writes can {@link IConfigFormat#patch(String, Map) patch} only the changed values.
+ */
+final class FileStorage implements ConfigStorage {
+    private final Path path;
+    private final IConfigFormat format;
+    private final IConfigWatcher watcher;
+    private final Set<Path> watched = ConcurrentHashMap.newKeySet();
+    @Nullable
+    private volatile byte[] contents;
+
+    FileStorage(Path path, IConfigFormat format, IConfigWatcher watcher) {
+        this.path = path;
+        this.format = format;
+        this.watcher = watcher;
+    }
+
+    @Override
+    public boolean exists(Path path) {
+        return Files.exists(path);
+    }
+
+    @Override
+    public CommentedConfig read(Path path) {
+        CommentedConfig config = CommentedConfig.inMemory();
+        if (path.equals(this.path)) {
+            this.contents = null;
+            try {
+                byte[] contents = Files.readAllBytes(path);
+                this.format.read(new ByteArrayInputStream(contents), config);
+                this.contents = contents;
+            } catch (NoSuchFileException e) {
+                // Treated as empty
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not read config file \"%s\"", path), e);
+            }
+            return config;
+        }
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(path))) {
+            this.format.read(input, config);
+        } catch (NoSuchFileException e) {
+            // Treated as empty
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read config file \"%s\"", path), e);
+        }
+        return config;
+    }
+
+    @Override
+    public void write(Path path, UnmodifiableConfig config) {
+        this.write(path, config, null);
+    }
+
+    @Override
+    public void write(Path path, UnmodifiableConfig config, @Nullable Map<String, Object> changes) {
+        if (!path.equals(this.path)) {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(path))) {
+                this.format.write(config, output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not write config file \"%s\"", path), e);
+            }
+            return;
+        }
+
+        byte[] contents = this.contents;
+        String patched = changes == null || contents == null ? null : this.format.patch(new String(contents, StandardCharsets.UTF_8), changes);
+        try {
+            if (patched != null) {
+                contents = patched.getBytes(StandardCharsets.UTF_8);
+            } else {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                this.format.write(config, output);
+                contents = output.toByteArray();
+            }
+            Files.write(path, contents);
+            this.contents = contents;
+        } catch (IOException e) {
+            this.contents = null;
+            throw new UncheckedIOException(String.format("Could not write config file \"%s\"", path), e);
+        }
+    }
+
+    @Override
+    public void delete(Path path) {
+        this.unwatch(path);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println(String.format("Couldn't delete file \"%s\".", path.toAbsolutePath()));
+        }
+    }
+
+    @Override
+    public void watch(Path path, Runnable onChange) {
+        try {
+            this.watcher.addWatch(path, onChange);
+            this.watched.add(path);
+        } catch (IOException e) {
+            System.err.println(String.format("Couldn't watch file \"%s\" for changes.",
+                    path.toAbsolutePath()));
+        }
+    }
+
+    @Override
+    public void unwatch(Path path) {
+        if (this.watched.remove(path)) {
+            this.watcher.removeWatch(path);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Path path : this.watched) {
+            this.unwatch(path);
+        }
+    }
+}
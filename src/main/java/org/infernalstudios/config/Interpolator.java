@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Resolves references to other keys in string values, such as {@code "${paths.root}/data"}, while a config is {@link Config#reload() reloaded}.
+ * <p>
+ * A value that is only a single reference, such as {@code "${general.baseRadius}"}, resolves to the referenced value with its type,
+ * so numbers can reference numbers. Otherwise the referenced values are inserted into the text.
+ * References can refer to values with references themselves. Missing references are kept as they are,
+ * and every key on a cycle of references keeps its own text, without any of its references resolved.
+ * <p>
+ * Every key is resolved at most once per reload. Parsed templates and results are kept between reloads,
+ * and a result is only computed again when its template or one of its referenced values changed.
+ */
+final class Interpolator {
+    private static final Pattern DOT = Pattern.compile("\\.");
+
+    private final Map<String, Resolved> cache = new HashMap<>();
+    private final Map<String, Object> results = new HashMap<>();
+    private final Set<String> resolving = new LinkedHashSet<>();
+    private final Set<String> cyclic = new HashSet<>();
+    @Nullable
+    private UnmodifiableConfig config;
+
+    /**
+     * Starts resolving references against {@code config}, which contains the values as read from the file.
+     */
+    void begin(UnmodifiableConfig config) {
+        this.config = config;
+        this.results.clear();
+        this.cyclic.clear();
+    }
+
+    /**
+     * Returns {@code value} with all references resolved, or {@code value} itself if it does not contain any.
+     */
+    @Nullable
+    Object resolve(String name, @Nullable Object value) {
+        if (!(value instanceof String text) || !text.contains("${")) {
+            return value;
+        }
+        if (this.results.containsKey(name)) {
+            return this.results.get(name);
+        }
+        if (!this.resolving.add(name)) {
+            // Every key resolved since name references the next one, and the last one references name again
+            List<String> cycle = new ArrayList<>();
+            boolean onCycle = false;
+            for (String key : this.resolving) {
+                onCycle |= key.equals(name);
+                if (onCycle) {
+                    cycle.add(key);
+                }
+            }
+            this.cyclic.addAll(cycle);
+            System.err.println(String.format("Cyclic reference to \"%s\", keeping the values of %s as they are.", name, cycle));
+            return text;
+        }
+        try {
+            Resolved resolved = this.cache.get(name);
+            Template template = resolved != null && resolved.template.source.equals(text) ? resolved.template : Template.parse(text);
+
+            Object[] inputs = new Object[template.references.size()];
+            for (int i = 0; i < inputs.length; i++) {
+                String reference = template.references.get(i);
+                Object input = this.config.get(Arrays.asList(DOT.split(reference)));
+                if (input == null) {
+                    System.err.println(String.format("Missing value \"%s\" referenced by \"%s\".", reference, name));
+                    inputs[i] = "${" + reference + "}";
+                } else {
+                    inputs[i] = this.resolve(reference, input);
+                }
+            }
+
+            if (this.cyclic.contains(name)) {
+                // Results computed on the cycle depend on where it was entered, so they are not kept
+                this.results.put(name, text);
+                return text;
+            }
+            if (resolved == null || resolved.template != template || !Arrays.equals(resolved.inputs, inputs)) {
+                resolved = new Resolved(template, inputs, template.apply(inputs));
+                this.cache.put(name, resolved);
+            }
+            this.results.put(name, resolved.result);
+            return resolved.result;
+        } finally {
+            this.resolving.remove(name);
+        }
+    }
+
+    private static final class Template {
+        private final String source;
+        private final List<String> literals = new ArrayList<>();
+        private final List<String> references = new ArrayList<>();
+
+        private Template(String source) {
+            this.source = source;
+        }
+
+        /**
+         * Splits {@code text} into literal text and references, so that literals and references alternate, starting and ending with a literal.
+         */
+        private static Template parse(String text) {
+            Template template = new Template(text);
+            int start = 0;
+            int index;
+            while ((index = text.indexOf("${", start)) >= 0) {
+                int end = text.indexOf('}', index + 2);
+                if (end < 0) {
+                    break;
+                }
+                template.literals.add(text.substring(start, index));
+                template.references.add(text.substring(index + 2, end).strip());
+                start = end + 1;
+            }
+            template.literals.add(text.substring(start));
+            return template;
+        }
+
+        private Object apply(Object[] inputs) {
+            if (inputs.length == 1 && this.literals.get(0).isEmpty() && this.literals.get(1).isEmpty()) {
+                return inputs[0];
+            }
+            StringBuilder s = new StringBuilder(this.literals.get(0));
+            for (int i = 0; i < inputs.length; i++) {
+                s.append(inputs[i]).append(this.literals.get(i + 1));
+            }
+            return s.toString();
+        }
+    }
+
+    private static final class Resolved {
+        private final Template template;
+        private final Object[] inputs;
+        private final Object result;
+
+        private Resolved(Template template, Object[] inputs, Object result) {
+            this.template = template;
+            this.inputs = inputs;
+            this.result = result;
+        }
+    }
+}
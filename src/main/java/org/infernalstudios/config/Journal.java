@@ -0,0 +1,228 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+
+import org.infernalstudios.config.util.BinaryValues;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * An append-only file of changed values, written instead of the config file to make frequent saves cheap.
+ * <p>
+ * Each record is the element name followed by its serialized value in the {@link BinaryValues} encoding.
+ * An incomplete record at the end, such as after a crash, is discarded when the journal is replayed.
+ * <p>
+ * The journal starts with a stamp of the sizes and modification times of the config files when its first record was written.
+ * The records are only valid for those files, so if they were changed by anything else since, such as edited by hand,
+ * the journal is discarded when it is replayed instead of replacing the edits with older values.
+ */
+final class Journal {
+    /**
+     * Merges journals into their config files in the background.
+     */
+    static final Executor COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Config Journal Compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final int HEADER_SIZE = Long.BYTES;
+
+    private final Path path;
+    private final List<Path> files;
+    private final long compactThreshold;
+    @Nullable
+    private OutputStream output;
+    private long size = 0;
+
+    Journal(Path configPath, List<Path> files, long compactThreshold) {
+        this.path = configPath.resolveSibling(configPath.getFileName() + ".journal");
+        this.files = files;
+        this.compactThreshold = compactThreshold;
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns true if the journal has grown past its threshold, and should be merged into the config file.
+     */
+    boolean shouldCompact() {
+        return this.size > this.compactThreshold;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Applies all records to {@code config}, and returns the replayed values by name.
+     * If the config files were changed since the journal was started, it is cleared and nothing is applied.
+     */
+    Map<String, Object> replay(CommentedConfig config) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        byte[] data;
+        try {
+            data = Files.readAllBytes(this.path);
+        } catch (NoSuchFileException e) {
+            this.size = 0;
+            return values;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read journal \"%s\"", this.path), e);
+        }
+
+        if (data.length == 0) {
+            this.size = 0;
+            return values;
+        }
+        if (data.length < HEADER_SIZE) {
+            System.err.println(String.format("Discarding journal \"%s\" without a complete header.", this.path));
+            this.clear();
+            return values;
+        }
+
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        DataInputStream in = new DataInputStream(bytes);
+        long valid = HEADER_SIZE;
+        try {
+            if (in.readLong() != this.stamp()) {
+                System.err.println(String.format("Discarding journal \"%s\", as the config file was changed since it was started.", this.path));
+                this.clear();
+                return values;
+            }
+            while (bytes.available() > 0) {
+                String name = BinaryValues.readString(in);
+                Object value = BinaryValues.readValue(in, config);
+                values.put(name, value);
+                valid = data.length - bytes.available();
+            }
+        } catch (EOFException e) {
+            System.err.println(String.format("Discarding incomplete record at the end of journal \"%s\".", this.path));
+        } catch (IOException e) {
+            System.err.println(String.format("Discarding malformed records at the end of journal \"%s\".", this.path));
+        }
+
+        if (valid < data.length) {
+            this.close();
+            try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not truncate journal \"%s\"", this.path), e);
+            }
+        }
+        this.size = valid;
+
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            config.set(entry.getKey(), entry.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Appends a record for every value in {@code changes}.
+     */
+    void append(Map<String, Object> changes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (this.size == 0) {
+                out.writeLong(this.stamp());
+            }
+            for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                BinaryValues.writeString(out, entry.getKey());
+                BinaryValues.writeValue(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            if (this.output == null) {
+                this.output = Files.newOutputStream(this.path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            bytes.writeTo(this.output);
+            this.output.flush();
+            this.size += bytes.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not append to journal \"%s\"", this.path), e);
+        }
+    }
+
+    /**
+     * Removes all records, after they were written to the config file.
+     */
+    void clear() {
+        this.close();
+        try {
+            Files.deleteIfExists(this.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not delete journal \"%s\"", this.path), e);
+        }
+        this.size = 0;
+    }
+
+    /**
+     * Returns a stamp of the sizes and modification times of the config files, which changes whenever one of them is written.
+     */
+    private long stamp() {
+        long stamp = 1;
+        for (Path file : this.files) {
+            long size;
+            long modified;
+            try {
+                size = Files.size(file);
+                modified = Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException e) {
+                size = -1;
+                modified = -1;
+            }
+            stamp = stamp * 31 + size;
+            stamp = stamp * 31 + modified;
+        }
+        return stamp;
+    }
+
+    void close() {
+        if (this.output != null) {
+            try {
+                this.output.close();
+            } catch (IOException e) {
+                System.err.println(String.format("Couldn't close journal \"%s\".", this.path));
+            }
+            this.output = null;
+        }
+    }
+}
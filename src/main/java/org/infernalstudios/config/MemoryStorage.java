@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableCommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+/**
+ * Stores config files as in-memory configs, without any file I/O.
+ * Stored configs are copied on every read and write, so they behave like files that can only be changed through this storage.
+ */
+final class MemoryStorage implements ConfigStorage {
+    /**
+     * The path of in-memory configs built without one, only used to identify files.
+     */
+    static final Path DEFAULT_PATH = Paths.get("memory.toml");
+
+    private final Map<Path, CommentedConfig> files = new ConcurrentHashMap<>();
+    private final Map<Path, Runnable> watches = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean exists(Path path) {
+        return this.files.containsKey(path);
+    }
+
+    @Override
+    public CommentedConfig read(Path path) {
+        CommentedConfig stored = this.files.get(path);
+        CommentedConfig config = CommentedConfig.inMemory();
+        if (stored != null) {
+            synchronized (stored) {
+                copy(stored, config);
+            }
+        }
+        return config;
+    }
+
+    @Override
+    public void write(Path path, UnmodifiableConfig config) {
+        CommentedConfig stored = CommentedConfig.inMemory();
+        copy(config, stored);
+        this.files.put(path, stored);
+    }
+
+    @Override
+    public void delete(Path path) {
+        this.unwatch(path);
+        this.files.remove(path);
+    }
+
+    @Override
+    public void watch(Path path, Runnable onChange) {
+        this.watches.put(path, onChange);
+    }
+
+    @Override
+    public void unwatch(Path path) {
+        this.watches.remove(path);
+    }
+
+    @Override
+    public void close() {
+        this.watches.clear();
+    }
+
+    /**
+     * Changes the stored file at {@code path}, and runs its watcher on the calling thread, like an external edit of a file on disk.
+     */
+    void edit(Path path, Consumer<CommentedConfig> edit) {
+        CommentedConfig stored = this.files.computeIfAbsent(path, p -> CommentedConfig.inMemory());
+        synchronized (stored) {
+            edit.accept(stored);
+        }
+        Runnable onChange = this.watches.get(path);
+        if (onChange != null) {
+            onChange.run();
+        }
+    }
+
+    private static void copy(UnmodifiableConfig source, CommentedConfig destination) {
+        for (Map.Entry<String, Object> entry : source.valueMap().entrySet()) {
+            List<String> key = Collections.singletonList(entry.getKey());
+            destination.set(key, copyValue(entry.getValue(), destination));
+            if (source instanceof UnmodifiableCommentedConfig commented) {
+                String comment = commented.getComment(key);
+                if (comment != null) {
+                    destination.setComment(key, comment);
+                }
+            }
+        }
+    }
+
+    private static Object copyValue(Object value, CommentedConfig parent) {
+        if (value instanceof UnmodifiableConfig config) {
+            CommentedConfig copy = parent.createSubConfig();
+            copy(config, copy);
+            return copy;
+        } else if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element, parent));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
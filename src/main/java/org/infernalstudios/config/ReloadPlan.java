@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A config and every config that depends on it, directly or indirectly, grouped into levels in the order they have to be reloaded,
+ * see {@link Config#dependsOn(Config)}.
+ * <p>
+ * Each level only contains configs whose dependencies in the plan are all in earlier levels, so the configs of a level can be reloaded in parallel.
+ */
+final class ReloadPlan {
+    private final List<List<Config>> levels = new ArrayList<>();
+    private final Set<Config> configs = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ReloadPlan() {
+    }
+
+    static synchronized ReloadPlan of(Config root) {
+        ReloadPlan plan = new ReloadPlan();
+        Map<Config, Integer> pending = new IdentityHashMap<>();
+        Deque<Config> queue = new ArrayDeque<>();
+        queue.add(root);
+        pending.put(root, 0);
+        while (!queue.isEmpty()) {
+            for (Config dependent : queue.poll().getDependents()) {
+                if (pending.putIfAbsent(dependent, 0) == null) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        // Count the dependencies of each config that are part of the plan, each config is added once all of them were added
+        for (Config config : pending.keySet()) {
+            for (Config dependency : config.getDependencies()) {
+                if (pending.containsKey(dependency)) {
+                    pending.merge(config, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Config> level = new ArrayList<>();
+        level.add(root);
+        while (!level.isEmpty()) {
+            List<Config> next = new ArrayList<>();
+            for (Config config : level) {
+                plan.configs.add(config);
+                for (Config dependent : config.getDependents()) {
+                    if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            plan.levels.add(level);
+            level = next;
+        }
+        return plan;
+    }
+
+    boolean contains(Config config) {
+        return this.configs.contains(config);
+    }
+
+    /**
+     * Reloads all configs level by level, and then emits {@link Config.ReloadStage#POST POST} for all of them in the same order.
+     * <p>
+     * If a reload throws, the remaining levels are not reloaded, POST is still emitted for every config that was reloaded,
+     * and the exception is rethrown.
+     */
+    void run(Executor executor) {
+        List<Config> reloaded = new ArrayList<>(this.configs.size());
+        try {
+            for (List<Config> level : this.levels) {
+                if (level.size() == 1) {
+                    level.get(0).reload(false);
+                    reloaded.add(level.get(0));
+                    continue;
+                }
+                CompletableFuture<?>[] futures = new CompletableFuture<?>[level.size()];
+                for (int i = 0; i < futures.length; i++) {
+                    Config config = level.get(i);
+                    futures[i] = CompletableFuture.runAsync(() -> config.reload(false), executor);
+                }
+                try {
+                    CompletableFuture.allOf(futures).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    throw e;
+                } finally {
+                    // allOf only completes once every reload of the level is done
+                    for (int i = 0; i < futures.length; i++) {
+                        if (!futures[i].isCompletedExceptionally()) {
+                            reloaded.add(level.get(i));
+                        }
+                    }
+                }
+            }
+        } finally {
+            for (Config config : reloaded) {
+                config.notifyReloaded();
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableCommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.format.IConfigFormat;
+import org.infernalstudios.config.util.annotation.Nullable;
+import org.infernalstudios.config.watcher.IConfigWatcher;
+
+/**
+ * Stores each top-level category of a config in its own file next to the config file, such as {@code config.general.toml},
+ * and values without a category in the config file itself.
+ * <p>
+ * Reading the config only parses the files that changed since they were last read or written,
+ * and writing it only writes the files whose contents changed, patching them when possible.
+ * Other files, such as sidecars, are handled like in {@link FileStorage}.
+ */
+final class ShardedStorage implements ConfigStorage {
+    private final Path path;
+    private final IConfigFormat format;
+    private final FileStorage files;
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+
+    ShardedStorage(Path path, IConfigFormat format, IConfigWatcher watcher, Set<String> categories) {
+        this.path = path;
+        this.format = format;
+        this.files = new FileStorage(path, format, watcher);
+
+        Path absolute = path.toAbsolutePath();
+        String fileName = absolute.getFileName().toString();
+        int index = fileName.lastIndexOf('.');
+        String baseName = index < 0 ? fileName : fileName.substring(0, index);
+        String extension = index < 0 ? "" : fileName.substring(index);
+
+        this.shards.put("", new Shard("", path));
+        for (String category : categories) {
+            this.shards.put(category, new Shard(category, absolute.resolveSibling(baseName + "." + category + extension)));
+        }
+    }
+
+    /**
+     * Returns the top-level categories of {@code elements}, which each get their own file.
+     */
+    static Set<String> getCategories(Iterable<IConfigElement<?>> elements) {
+        Set<String> categories = new LinkedHashSet<>();
+        for (IConfigElement<?> element : elements) {
+            String category = element.getCategory();
+            int index = category.indexOf('.');
+            if (!category.isEmpty()) {
+                categories.add(index < 0 ? category : category.substring(0, index));
+            }
+        }
+        return categories;
+    }
+
+    @Override
+    public boolean exists(Path path) {
+        return this.files.exists(path);
+    }
+
+    @Override
+    public synchronized CommentedConfig read(Path path) {
+        if (!path.equals(this.path)) {
+            return this.files.read(path);
+        }
+        for (Shard shard : this.shards.values()) {
+            shard.read();
+        }
+        CommentedConfig config = CommentedConfig.inMemory();
+        copy(this.shards.get("").config, config, Collections.emptySet());
+        for (Shard shard : this.shards.values()) {
+            if (!shard.category.isEmpty() && !shard.config.isEmpty()) {
+                config.set(Collections.singletonList(shard.category), shard.config);
+            }
+        }
+        return config;
+    }
+
+    @Override
+    public void write(Path path, UnmodifiableConfig config) {
+        this.write(path, config, null);
+    }
+
+    @Override
+    public synchronized void write(Path path, UnmodifiableConfig config, @Nullable Map<String, Object> changes) {
+        if (!path.equals(this.path)) {
+            this.files.write(path, config, changes);
+            return;
+        }
+        for (Shard shard : this.shards.values()) {
+            Map<String, Object> shardChanges = null;
+            if (changes != null) {
+                shardChanges = shard.getChanges(changes);
+                if (shardChanges.isEmpty()) {
+                    continue;
+                }
+            }
+            CommentedConfig shardConfig = CommentedConfig.inMemory();
+            if (shard.category.isEmpty()) {
+                copy(config, shardConfig, this.shards.keySet());
+            } else if (config.get(Collections.singletonList(shard.category)) instanceof UnmodifiableConfig category) {
+                copy(category, shardConfig, Collections.emptySet());
+            }
+            shard.write(shardConfig, shardChanges);
+        }
+    }
+
+    @Override
+    public List<Path> getFiles(Path path) {
+        if (!path.equals(this.path)) {
+            return this.files.getFiles(path);
+        }
+        List<Path> files = new ArrayList<>(this.shards.size());
+        for (Shard shard : this.shards.values()) {
+            files.add(shard.path);
+        }
+        return files;
+    }
+
+    @Override
+    public void delete(Path path) {
+        this.files.delete(path);
+    }
+
+    /**
+     * Watches every file of the config, which are only parsed again when they were changed.
+     */
+    @Override
+    public void watch(Path path, Runnable onChange) {
+        if (!path.equals(this.path)) {
+            this.files.watch(path, onChange);
+            return;
+        }
+        for (Shard shard : this.shards.values()) {
+            this.files.watch(shard.path, () -> {
+                shard.stale = true;
+                onChange.run();
+            });
+        }
+    }
+
+    @Override
+    public void unwatch(Path path) {
+        if (!path.equals(this.path)) {
+            this.files.unwatch(path);
+            return;
+        }
+        for (Shard shard : this.shards.values()) {
+            this.files.unwatch(shard.path);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.files.close();
+    }
+
+    private static void copy(UnmodifiableConfig from, CommentedConfig to, Set<String> excluded) {
+        Map<String, String> comments = from instanceof UnmodifiableCommentedConfig commented ? commented.commentMap() : Collections.emptyMap();
+        for (Map.Entry<String, Object> entry : from.valueMap().entrySet()) {
+            if (excluded.contains(entry.getKey())) {
+                continue;
+            }
+            to.valueMap().put(entry.getKey(), entry.getValue());
+            String comment = comments.get(entry.getKey());
+            if (comment != null) {
+                to.setComment(Collections.singletonList(entry.getKey()), comment);
+            }
+        }
+    }
+
+    private final class Shard {
+        private final String category;
+        private final Path path;
+        private CommentedConfig config = CommentedConfig.inMemory();
+        @Nullable
+        private byte[] contents;
+        private volatile boolean stale = true;
+
+        private Shard(String category, Path path) {
+            this.category = category;
+            this.path = path;
+        }
+
+        /**
+         * Parses the file again if it was changed, and its contents differ from the ones last read or written.
+         */
+        private void read() {
+            if (!this.stale) {
+                return;
+            }
+            this.stale = false;
+            byte[] contents;
+            try {
+                contents = Files.readAllBytes(this.path);
+            } catch (NoSuchFileException e) {
+                this.contents = null;
+                this.config = CommentedConfig.inMemory();
+                return;
+            } catch (IOException e) {
+                this.stale = true;
+                throw new UncheckedIOException(String.format("Could not read config file \"%s\"", this.path), e);
+            }
+            if (Arrays.equals(contents, this.contents)) {
+                return;
+            }
+            CommentedConfig config = CommentedConfig.inMemory();
+            try {
+                ShardedStorage.this.format.read(new ByteArrayInputStream(contents), config);
+            } catch (IOException e) {
+                this.stale = true;
+                throw new UncheckedIOException(String.format("Could not read config file \"%s\"", this.path), e);
+            }
+            this.config = config;
+            this.contents = contents;
+        }
+
+        /**
+         * Returns the changes to values in this shard, with names relative to it.
+         */
+        private Map<String, Object> getChanges(Map<String, Object> changes) {
+            Map<String, Object> shardChanges = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                String name = entry.getKey();
+                if (this.category.isEmpty()) {
+                    if (name.indexOf('.') < 0) {
+                        shardChanges.put(name, entry.getValue());
+                    }
+                } else if (name.length() > this.category.length() && name.startsWith(this.category) && name.charAt(this.category.length()) == '.') {
+                    shardChanges.put(name.substring(this.category.length() + 1), entry.getValue());
+                }
+            }
+            return shardChanges;
+        }
+
+        /**
+         * Writes the file if its contents changed, patching only {@code changes} into it when possible.
+         */
+        private void write(CommentedConfig config, @Nullable Map<String, Object> changes) {
+            byte[] contents = this.contents;
+            String patched = changes == null || contents == null ? null : ShardedStorage.this.format.patch(new String(contents, StandardCharsets.UTF_8), changes);
+            try {
+                if (patched != null) {
+                    contents = patched.getBytes(StandardCharsets.UTF_8);
+                } else {
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    ShardedStorage.this.format.write(config, output);
+                    contents = output.toByteArray();
+                }
+                if (Arrays.equals(contents, this.contents) && Files.exists(this.path)) {
+                    return;
+                }
+                Files.write(this.path, contents);
+                this.contents = contents;
+                this.config = config;
+            } catch (IOException e) {
+                this.stale = true;
+                throw new UncheckedIOException(String.format("Could not write config file \"%s\"", this.path), e);
+            }
+        }
+    }
+}
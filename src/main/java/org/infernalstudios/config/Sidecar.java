@@ -0,0 +1,255 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.element.ListConfigElement;
+import org.infernalstudios.config.element.handler.IConfigElementHandler;
+import org.infernalstudios.config.element.handler.ListElementHandler;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Stores a list element in its own file, or in multiple chunk files, next to the config file.
+ * <p>
+ * The serialized contents of each chunk, and the values they were serialized from, are kept.
+ * Saving only serializes and writes chunks whose values changed, and changes to a chunk file only cause that chunk to be read again.
+ */
+final class Sidecar {
+    private static final String KEY = "values";
+
+    private final Config config;
+    private final IConfigElement<Object> element;
+    private final int chunkSize;
+    private final Path directory;
+    private final String baseName;
+    private final String extension;
+    private final List<List<Object>> chunks = new ArrayList<>();
+    private final List<List<Object>> sources = new ArrayList<>();
+    private final Set<Path> watched = new HashSet<>();
+    private boolean loaded = false;
+
+    @SuppressWarnings("unchecked")
+    Sidecar(Config config, IConfigElement<?> element, int chunkSize) {
+        this.config = config;
+        this.element = (IConfigElement<Object>) element;
+        this.chunkSize = chunkSize;
+
+        Path path = config.getPath().toAbsolutePath();
+        String fileName = path.getFileName().toString();
+        int index = fileName.lastIndexOf('.');
+        this.directory = path.getParent();
+        this.baseName = (index < 0 ? fileName : fileName.substring(0, index)) + "." + element.getName();
+        this.extension = index < 0 ? "" : fileName.substring(index);
+    }
+
+    Path getPath(int chunk) {
+        if (this.chunkSize <= 0) {
+            return this.directory.resolve(this.baseName + this.extension);
+        }
+        return this.directory.resolve(this.baseName + "." + chunk + this.extension);
+    }
+
+    boolean isLoaded() {
+        return this.loaded;
+    }
+
+    /**
+     * Reads all chunks and updates the element, or writes the current value if there is no sidecar yet.
+     */
+    void load() {
+        this.chunks.clear();
+        for (int i = 0; this.config.getStorage().exists(this.getPath(i)); i++) {
+            this.chunks.add(this.readChunk(i));
+            this.watch(i);
+            if (this.chunkSize <= 0) {
+                break;
+            }
+        }
+        this.loaded = true;
+
+        if (this.chunks.isEmpty()) {
+            this.save();
+        } else {
+            this.apply();
+        }
+    }
+
+    /**
+     * Reads a single chunk again. A chunk whose file was deleted is removed, together with all chunks after it.
+     *
+     * @return True if the chunks changed, and the element has to be updated with {@link Sidecar#apply()}
+     */
+    boolean reload(int chunk) {
+        if (chunk > this.chunks.size()) {
+            return false;
+        }
+        if (!this.config.getStorage().exists(this.getPath(chunk))) {
+            if (chunk == this.chunks.size()) {
+                return false;
+            }
+            this.chunks.subList(chunk, this.chunks.size()).clear();
+            return true;
+        }
+        List<Object> values = this.readChunk(chunk);
+        if (chunk == this.chunks.size()) {
+            this.chunks.add(values);
+        } else if (!values.equals(this.chunks.get(chunk))) {
+            this.chunks.set(chunk, values);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes all chunks whose values differ from the ones last read or written, and deletes chunks that are no longer needed.
+     * Chunks whose values did not change are not serialized again.
+     */
+    @SuppressWarnings("unchecked")
+    void save() {
+        ListConfigElement listElement = this.getListElement();
+        List<Object> values = this.getValues(listElement);
+        int chunkCount = this.chunkSize <= 0 ? 1 : Math.max(1, (values.size() + this.chunkSize - 1) / this.chunkSize);
+
+        for (int i = 0; i < chunkCount; i++) {
+            List<Object> source = this.chunkSize <= 0 ? values : values.subList(i * this.chunkSize, Math.min(values.size(), (i + 1) * this.chunkSize));
+            if (i < this.sources.size() && source.equals(this.sources.get(i)) && this.config.getStorage().exists(this.getPath(i))) {
+                continue;
+            }
+            source = new ArrayList<>(source);
+            List<Object> chunk = listElement == null || listElement.serializeHandler == null ? source : serialize(source, listElement.serializeHandler);
+            CommentedConfig config = CommentedConfig.inMemory();
+            config.set(KEY, chunk);
+            if (i == 0 && this.config.getFormat().supportsComments()) {
+                config.setComment(KEY, this.element.getComment());
+            }
+            this.config.write(this.getPath(i), config);
+            if (i < this.chunks.size()) {
+                this.chunks.set(i, chunk);
+            } else {
+                this.chunks.add(chunk);
+            }
+            set(this.sources, i, source);
+            this.watch(i);
+        }
+
+        while (this.chunks.size() > chunkCount) {
+            int i = this.chunks.size() - 1;
+            Path path = this.getPath(i);
+            if (this.watched.remove(path)) {
+                this.config.getStorage().unwatch(path);
+            }
+            this.config.getStorage().delete(path);
+            this.chunks.remove(i);
+        }
+        while (this.sources.size() > chunkCount) {
+            this.sources.remove(this.sources.size() - 1);
+        }
+    }
+
+    /**
+     * Returns the element if it can be serialized per chunk, which requires the default list handler.
+     */
+    @Nullable
+    private ListConfigElement getListElement() {
+        IConfigElement<?> element = this.element;
+        return element instanceof ListConfigElement list && list.getTypeHandler() == ListElementHandler.INSTANCE ? list : null;
+    }
+
+    /**
+     * Returns the values that are compared to find changed chunks, which are the unserialized values if the element can be serialized per chunk.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> getValues(@Nullable ListConfigElement listElement) {
+        if (listElement == null) {
+            return (List<Object>) ((IConfigElementHandler<Object, Object>) this.element.getTypeHandler()).serialize(this.element);
+        }
+        List<Object> values = listElement.getFromField();
+        return values == null ? listElement.getDefault() : values;
+    }
+
+    private static List<Object> serialize(List<Object> values, Function<Object, Object> serializer) {
+        List<Object> serialized = new ArrayList<>(values.size());
+        for (Object value : values) {
+            Object item = serializer.apply(value);
+            if (item != null) {
+                serialized.add(item);
+            }
+        }
+        return serialized;
+    }
+
+    private static void set(List<List<Object>> list, int index, List<Object> value) {
+        if (index < list.size()) {
+            list.set(index, value);
+        } else {
+            list.add(value);
+        }
+    }
+
+    /**
+     * Updates the element with the values of all chunks.
+     */
+    void apply() {
+        List<Object> values;
+        if (this.chunks.size() == 1) {
+            values = this.chunks.get(0);
+        } else {
+            values = new ArrayList<>();
+            for (List<Object> chunk : this.chunks) {
+                values.addAll(chunk);
+            }
+        }
+        // The values the chunks were deserialized to, so saving them again does not write anything.
+        // Invalid chunks keep no values, so they are written again on save
+        this.sources.clear();
+        if (Config.update(this.element, values)) {
+            List<Object> current = this.getValues(this.getListElement());
+            for (int i = 0; i < this.chunks.size(); i++) {
+                int from = this.chunkSize <= 0 ? 0 : Math.min(current.size(), i * this.chunkSize);
+                int to = this.chunkSize <= 0 ? current.size() : Math.min(current.size(), (i + 1) * this.chunkSize);
+                this.sources.add(new ArrayList<>(current.subList(from, to)));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> readChunk(int chunk) {
+        Object values = this.config.read(this.getPath(chunk)).get(KEY);
+        if (values instanceof List<?> list) {
+            return (List<Object>) list;
+        }
+        System.err.println(String.format("Sidecar chunk \"%s\" does not contain a list of values.", this.getPath(chunk)));
+        return Collections.emptyList();
+    }
+
+    private void watch(int chunk) {
+        Path path = this.getPath(chunk);
+        if (this.watched.add(path)) {
+            this.config.getStorage().watch(path, () -> this.config.reloadSidecar(this, chunk));
+        }
+    }
+}
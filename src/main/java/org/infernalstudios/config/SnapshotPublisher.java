@@ -0,0 +1,138 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the values of a {@link Config} to a memory-mapped file, so other processes on the same host can read them
+ * with a {@link SnapshotReader} instead of parsing and watching the config file themselves.
+ * <p>
+ * The file starts with a header containing a sequence counter, followed by the values encoded by {@link ConfigSync#encode(Config)}.
+ * The counter is odd while the values are being written, and is incremented again once they are complete (a seqlock),
+ * so readers never block the publisher, and detect updates by polling the counter.
+ * <p>
+ * Only one publisher may write to a file at a time.
+ */
+public final class SnapshotPublisher implements AutoCloseable {
+    static final int MAGIC = 0x49435353;
+    static final int VERSION = 1;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int SEQUENCE_OFFSET = 8;
+    static final int LENGTH_OFFSET = 16;
+    static final int HEADER_SIZE = 24;
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private static final int MIN_CAPACITY = 4096;
+
+    private final Config config;
+    private final Path path;
+    private final FileChannel channel;
+    private final Consumer<List<ConfigChange>> listener = changes -> this.publish();
+    private MappedByteBuffer buffer;
+    private long sequence;
+    private long generation = -1;
+    private boolean closed = false;
+
+    private SnapshotPublisher(Config config, Path path) throws IOException {
+        this.config = config;
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(this.channel.size(), MIN_CAPACITY));
+        if (this.buffer.getInt(MAGIC_OFFSET) == MAGIC && this.buffer.getInt(VERSION_OFFSET) == VERSION) {
+            // Continue the sequence of a previous publisher, so readers still see the next snapshot as new
+            this.sequence = ((long) LONGS.getAcquire(this.buffer, SEQUENCE_OFFSET) + 1) & ~1L;
+        } else {
+            this.buffer.putInt(MAGIC_OFFSET, MAGIC);
+            this.buffer.putInt(VERSION_OFFSET, VERSION);
+            this.buffer.putInt(LENGTH_OFFSET, 0);
+            this.sequence = 0;
+            LONGS.setRelease(this.buffer, SEQUENCE_OFFSET, this.sequence);
+        }
+    }
+
+    /**
+     * Maps the file at {@code path}, creating it if needed, publishes the current values of {@code config},
+     * and publishes them again every time they {@link Config#onChange(Consumer) change}.
+     *
+     * @throws IOException If the file cannot be created or mapped
+     */
+    public static SnapshotPublisher open(Config config, Path path) throws IOException {
+        SnapshotPublisher publisher = new SnapshotPublisher(config, path);
+        publisher.publish();
+        config.onChange(publisher.listener);
+        return publisher;
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Writes the current values of the config to the file.
+     *
+     * @throws UncheckedIOException If the file has to be grown, and cannot be
+     */
+    public void publish() {
+        // Encoded without holding the lock of this publisher, as encoding locks the config,
+        // and change listeners call this while already holding the config lock
+        long generation = this.config.getGeneration();
+        byte[] data = ConfigSync.encode(this.config);
+        this.write(data, generation);
+    }
+
+    private synchronized void write(byte[] data, long generation) {
+        // Values encoded concurrently may arrive out of order, older ones must not replace newer ones
+        if (this.closed || generation < this.generation) {
+            return;
+        }
+        this.generation = generation;
+        if (HEADER_SIZE + data.length > this.buffer.capacity()) {
+            try {
+                this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(HEADER_SIZE + data.length, this.buffer.capacity() * 2L));
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not grow snapshot file \"%s\"", this.path), e);
+            }
+        }
+
+        LONGS.setRelease(this.buffer, SEQUENCE_OFFSET, ++this.sequence);
+        VarHandle.storeStoreFence();
+        this.buffer.putInt(LENGTH_OFFSET, data.length);
+        this.buffer.put(HEADER_SIZE, data);
+        LONGS.setRelease(this.buffer, SEQUENCE_OFFSET, ++this.sequence);
+    }
+
+    /**
+     * Stops publishing changes and unmaps the file. The file is left in place, so readers keep the last snapshot.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.closed = true;
+        this.config.removeChangeListener(this.listener);
+        this.channel.close();
+    }
+}
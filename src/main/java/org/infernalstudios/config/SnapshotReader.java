@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the values written by a {@link SnapshotPublisher}, and applies them to a config built from the same classes,
+ * such as one {@link ConfigBuilder#buildInMemory() built in memory}.
+ * <p>
+ * {@link SnapshotReader#poll() poll()} only compares the sequence counter in the mapped file while nothing changed,
+ * so it is cheap enough to call every tick.
+ */
+public final class SnapshotReader implements AutoCloseable {
+    /**
+     * How often a snapshot that is being written is read again before giving up, such as when the publisher crashed while writing it.
+     */
+    private static final int MAX_RETRIES = 1000;
+
+    private final Config config;
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long sequence = -1;
+
+    private SnapshotReader(Config config, Path path) throws IOException {
+        this.config = config;
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+        if (this.buffer.capacity() < SnapshotPublisher.HEADER_SIZE
+                || this.buffer.getInt(SnapshotPublisher.MAGIC_OFFSET) != SnapshotPublisher.MAGIC
+                || this.buffer.getInt(SnapshotPublisher.VERSION_OFFSET) != SnapshotPublisher.VERSION) {
+            this.channel.close();
+            throw new IOException(String.format("\"%s\" is not a config snapshot", path));
+        }
+    }
+
+    /**
+     * Maps the snapshot file at {@code path}, and applies the values in it to {@code config}.
+     *
+     * @throws IOException If the file does not exist, is not a snapshot, or was published from a config with different elements
+     */
+    public static SnapshotReader open(Config config, Path path) throws IOException {
+        SnapshotReader reader = new SnapshotReader(config, path);
+        reader.poll();
+        return reader;
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Applies the values in the file to the config if they were published since the last call.
+     * Reload listeners are notified as if the config was reloaded.
+     *
+     * If the values are still being written after a number of retries, the config keeps its current values,
+     * and the next call tries again.
+     *
+     * @return True if new values were applied
+     * @throws IOException If the values were published from a config with different elements
+     */
+    public synchronized boolean poll() throws IOException {
+        byte[] data;
+        long sequence;
+        for (int retries = 0;; retries++) {
+            if (retries > MAX_RETRIES) {
+                return false;
+            }
+            sequence = (long) SnapshotPublisher.LONGS.getAcquire(this.buffer, SnapshotPublisher.SEQUENCE_OFFSET);
+            if (sequence == this.sequence) {
+                return false;
+            }
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int length = this.buffer.getInt(SnapshotPublisher.LENGTH_OFFSET);
+            if (length < 0 || SnapshotPublisher.HEADER_SIZE + (long) length > this.buffer.capacity()) {
+                // The publisher grew the file, or is in the middle of writing
+                if (SnapshotPublisher.HEADER_SIZE + (long) length > this.channel.size()) {
+                    Thread.onSpinWait();
+                } else {
+                    this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+                }
+                continue;
+            }
+            data = new byte[length];
+            this.buffer.get(SnapshotPublisher.HEADER_SIZE, data);
+            VarHandle.loadLoadFence();
+            if ((long) SnapshotPublisher.LONGS.getAcquire(this.buffer, SnapshotPublisher.SEQUENCE_OFFSET) == sequence) {
+                break;
+            }
+        }
+
+        this.sequence = sequence;
+        if (data.length == 0) {
+            return false;
+        }
+        ConfigSync.decode(this.config, data);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
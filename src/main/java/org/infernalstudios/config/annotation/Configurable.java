@@ -60,4 +60,18 @@ public @interface Configurable {
      * Specifies if the default value of this field should be shown in the config.
      */
     boolean showDefault() default true;
+
+    /**
+     * Specifies if this field should be stored in a separate sidecar file next to the config file, instead of the config file itself.
+     * The sidecar is watched and reloaded on its own, so large values do not slow down reloading and saving the rest of the config.
+     * <p>
+     * Only supported for {@link java.util.List List} fields.
+     */
+    boolean sidecar() default false;
+
+    /**
+     * If greater than 0, splits the sidecar into chunk files of at most this many list entries each.
+     * Only chunks that changed are rewritten when the config is saved, and only changed chunks are read again when reloading.
+     */
+    int sidecarChunkSize() default 0;
 }
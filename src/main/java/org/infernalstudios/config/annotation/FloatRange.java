@@ -24,6 +24,7 @@ import java.lang.annotation.Target;
  * Specifies the bounds for a
  * {@link org.infernalstudios.config.annotation.Configurable @Configurable}
  * field. The bound is inclusive.
+ * On a {@link java.util.List List} field, the bounds apply to every number in the list.
  */
 @Target(ElementType.FIELD)
 @Retention(RetentionPolicy.RUNTIME)
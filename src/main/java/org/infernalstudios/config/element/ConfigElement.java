@@ -15,23 +15,36 @@
  */
 package org.infernalstudios.config.element;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Field;
 
 import org.infernalstudios.config.annotation.Configurable;
 import org.infernalstudios.config.element.handler.IConfigElementHandler;
+import org.infernalstudios.config.util.ReflectionCache;
 import org.infernalstudios.config.util.Util;
 import org.infernalstudios.config.util.annotation.Nullable;
 
-public class ConfigElement<T> implements IConfigElement<T> {
+public class ConfigElement<T> implements IConfigElement<T>, Cloneable {
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
     private final Field field;
     private final IConfigElementHandler<T, ?> handler;
     private final T defaultValue;
     private boolean showDefault;
     private String translationKey;
     private String comment;
-    private T value;
+    private volatile T value;
     private final String category;
+    private final String name;
+    @Nullable
+    private volatile String formattedComment;
     private String[] tags;
+    @Nullable
+    private Object[] values;
+    private int index;
+    @Nullable
+    private final ValueConstraints constraints;
 
     @SuppressWarnings("unchecked")
     private static <T> T getDefaultValueOrThrow(Field field) {
@@ -54,7 +67,7 @@ public class ConfigElement<T> implements IConfigElement<T> {
     }
 
     public ConfigElement(Field field, IConfigElementHandler<T, ?> handler, T defaultValue) {
-        Configurable configurable = field.getAnnotation(Configurable.class);
+        Configurable configurable = ReflectionCache.of(field).getAnnotation(Configurable.class);
         String description = configurable.description();
         String translationKey = configurable.translationKey();
         this.showDefault = configurable.showDefault();
@@ -67,6 +80,7 @@ public class ConfigElement<T> implements IConfigElement<T> {
         }
         this.translationKey = translationKey.isEmpty() ? field.getName() : translationKey;
         this.category = Util.getCategory(field);
+        this.name = this.category.isEmpty() ? field.getName() : this.category + "." + field.getName();
 
         this.defaultValue = defaultValue;
 
@@ -74,6 +88,12 @@ public class ConfigElement<T> implements IConfigElement<T> {
             throw new IllegalStateException(String.format("Default value is null for field \"%s\"\n\tat: %s",
                     this.field.getName(), this.field.toGenericString()));
         }
+
+        this.constraints = ValueConstraints.of(field);
+        if (this.constraints != null && !this.constraints.isValid(this.defaultValue)) {
+            throw new IllegalStateException(String.format("Default value \"%s\" does not match the constraints of field \"%s\"\n\tat: %s",
+                    this.defaultValue, this.field.getName(), this.field.toGenericString()));
+        }
     }
 
 
@@ -83,9 +103,37 @@ public class ConfigElement<T> implements IConfigElement<T> {
         return this.translationKey;
     }
 
+    /**
+     * Creates a copy of this element that stores its value in {@code values} at {@code index}, instead of in the field.
+     * The copy shares everything else with this element.
+     */
+    @SuppressWarnings("unchecked")
+    public ConfigElement<T> bind(Object[] values, int index) {
+        ConfigElement<T> element;
+        try {
+            element = (ConfigElement<T>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        element.values = values;
+        element.index = index;
+        return element;
+    }
+
+    /**
+     * Returns true if this element stores its value in a value array instead of its field, see {@link ConfigElement#bind(Object[], int)}.
+     */
+    public boolean isBound() {
+        return this.values != null;
+    }
+
     @Override
     @Nullable
+    @SuppressWarnings("unchecked")
     public T get() {
+        if (this.values != null) {
+            return (T) VALUES.getVolatile(this.values, this.index);
+        }
         return this.value;
     }
 
@@ -93,8 +141,13 @@ public class ConfigElement<T> implements IConfigElement<T> {
     @Nullable
     @SuppressWarnings("unchecked")
     public T getFromField() {
+        if (this.values != null) {
+            return this.get();
+        }
         try {
-            this.set((T) this.field.get(field.getDeclaringClass()));
+            synchronized (this) {
+                this.setField((T) this.field.get(field.getDeclaringClass()));
+            }
         } catch (IllegalArgumentException e) {
             throw new IllegalStateException(String.format("Field is not static\n\tat: %s",
                     field.toGenericString()), e);
@@ -108,11 +161,29 @@ public class ConfigElement<T> implements IConfigElement<T> {
         return this.get();
     }
 
+    /**
+     * Sets the cached value and the field together, so concurrent calls cannot leave them with different values.
+     * Values are safely published to threads calling {@link ConfigElement#get()}, but not to threads reading the field directly, unless it is volatile.
+     */
     @Override
-    public void set(@Nullable T value) {
+    public void set(@Nullable T value) throws IllegalArgumentException {
+        if (value != null && this.constraints != null && !this.constraints.isValid(value)) {
+            throw new IllegalArgumentException(String.format("Value \"%s\" is not valid for field \"%s.%s\"",
+                    value, this.field.getDeclaringClass().getName(), this.field.getName()));
+        }
+        if (this.values != null) {
+            VALUES.setVolatile(this.values, this.index, value);
+            return;
+        }
+        synchronized (this) {
+            this.setField(value);
+        }
+    }
+
+    private void setField(@Nullable T value) {
         this.value = value;
         try {
-            this.field.set(this, value == null ? this.getDefault() : this.get());
+            this.field.set(this, value == null ? this.getDefault() : value);
         } catch (IllegalArgumentException e) {
             throw new IllegalStateException(String.format("Field is not static\n\tat: %s",
                     this.field.toGenericString()), e);
@@ -122,13 +193,53 @@ public class ConfigElement<T> implements IConfigElement<T> {
         }
     }
 
+    /**
+     * Checks the value against the constraints of this element, see {@link ValueConstraints}.
+     */
+    @Override
+    public boolean isValid(@Nullable Object value) {
+        return value == null || this.constraints == null || this.constraints.isValid(value);
+    }
+
+    /**
+     * Returns the compiled constraints of this element, or null if it has none.
+     */
+    @Nullable
+    public ValueConstraints getConstraints() {
+        return this.constraints;
+    }
+
     @Override
     public T getDefault() {
         return this.defaultValue;
     }
 
+    /**
+     * Returns the name of this element, computed once when it is created.
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the comment of this element, formatted once by {@link ConfigElement#formatComment()} on first use.
+     */
     @Override
     public String getComment() {
+        String comment = this.formattedComment;
+        if (comment == null) {
+            comment = this.formatComment();
+            this.formattedComment = comment;
+        }
+        return comment;
+    }
+
+    /**
+     * Formats the comment of this element from its description, default value and constraints.
+     * Only called once, subclasses adding to the comment should override this instead of {@link ConfigElement#getComment()}.
+     */
+    protected String formatComment() {
         StringBuilder s = new StringBuilder();
         if (this.comment != null && !this.comment.isEmpty()) {
             s.append(' ').append(this.comment).append('\n');
@@ -136,6 +247,12 @@ public class ConfigElement<T> implements IConfigElement<T> {
         if (this.showDefault) {
             s.append(' ').append("Default: ").append(this.defaultValue.toString());
         }
+        if (this.constraints != null) {
+            if (s.length() > 0 && s.charAt(s.length() - 1) != '\n') {
+                s.append('\n');
+            }
+            s.append(this.constraints.getDescription());
+        }
         return s.toString();
     }
 
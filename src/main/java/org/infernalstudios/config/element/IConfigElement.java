@@ -63,6 +63,13 @@ public interface IConfigElement<T> {
      * Can throw an {@link IllegalArgumentException} if the given value is not valid.
      */
     void set(@Nullable T value);
+
+    /**
+     * Checks if the given value can be {@link IConfigElement#set(Object) set} without throwing. Defaults to true.
+     */
+    default boolean isValid(@Nullable Object value) {
+        return true;
+    }
     
     /**
      * Returns the default value of this element. Should never be null, and should be set within the class constructor.
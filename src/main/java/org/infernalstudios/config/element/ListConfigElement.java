@@ -21,11 +21,12 @@ import java.lang.reflect.Method;
 import java.util.List;
 import java.util.function.Function;
 
-import org.infernalstudios.config.Config;
-import org.infernalstudios.config.annotation.AutoSerializable;
 import org.infernalstudios.config.annotation.ListValue;
-import org.infernalstudios.config.element.handler.AutoElementHandler;
+import org.infernalstudios.config.element.codec.IValueCodec;
+import org.infernalstudios.config.element.codec.ValueCodecs;
 import org.infernalstudios.config.element.handler.IConfigElementHandler;
+import org.infernalstudios.config.util.GenericType;
+import org.infernalstudios.config.util.ReflectionCache;
 import org.infernalstudios.config.util.Util;
 import org.infernalstudios.config.util.annotation.Nullable;
 
@@ -39,7 +40,7 @@ public class ListConfigElement extends ConfigElement<List> {
     @SuppressWarnings("unchecked")
     public ListConfigElement(Field field, IConfigElementHandler<List, ?> handler) {
         super(field, handler);
-        ListValue valueAnnotation = field.getAnnotation(ListValue.class);
+        ListValue valueAnnotation = ReflectionCache.of(field).getAnnotation(ListValue.class);
 
         if (valueAnnotation != null) {
             String deserializeHandlerPath = valueAnnotation.deserialize();
@@ -96,34 +97,23 @@ public class ListConfigElement extends ConfigElement<List> {
                 throw new IllegalStateException("Could not find class for generic type", e);
             }
         } else {
-            try {
-                Class<?> genericType = Util.getGenericClass(field);
-                if (genericType == null) {
-                    throw new IllegalStateException("List declared without generic type: " + field.toGenericString());
-                }
-
-                if (genericType.isAnnotationPresent(AutoSerializable.class)) {
-                    AutoElementHandler typeHandler = (AutoElementHandler) Config.getHandler(genericType);
-                    if (typeHandler == null) {
-                        throw new IllegalStateException("No handler found for generic type: " + genericType.getName());
-                    }
+            GenericType genericType = ReflectionCache.of(field).getGenericType();
+            if (genericType.getTypeArgumentCount() == 0) {
+                throw new IllegalStateException("List declared without generic type: " + field.toGenericString());
+            }
 
-                    this.deserializeHandler = obj -> {
-                        if (obj instanceof com.electronwill.nightconfig.core.Config config) {
-                            return typeHandler.deserialize(new VirtualListConfigElement<>(this, obj, typeHandler.createDefault()), config);
-                        } else {
-                            return null;
-                        }
-                    };
-                    this.serializeHandler = obj -> typeHandler.serialize(new VirtualListConfigElement<>(this, typeHandler.createDefault(), typeHandler.createDefault()));
-                } else {
-                    this.deserializeHandler = null;
-                    this.serializeHandler = null;
-                }
-            } catch (SecurityException e) {
-                throw new IllegalStateException("Could not access method for serialization handler", e);
-            } catch (ClassNotFoundException e) {
-                throw new IllegalStateException("Could not find class for generic type", e);
+            IValueCodec<Object> codec;
+            try {
+                codec = ValueCodecs.forType(genericType.getTypeArgument(0));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(String.format("Unsupported list element type\n\tat: %s", field.toGenericString()), e);
+            }
+            if (codec != ValueCodecs.IDENTITY) {
+                this.deserializeHandler = codec::decode;
+                this.serializeHandler = codec::encode;
+            } else {
+                this.deserializeHandler = null;
+                this.serializeHandler = null;
             }
         }
     }
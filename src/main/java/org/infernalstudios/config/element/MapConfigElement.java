@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.element;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import org.infernalstudios.config.element.codec.IValueCodec;
+import org.infernalstudios.config.element.codec.ValueCodecs;
+import org.infernalstudios.config.element.handler.IConfigElementHandler;
+import org.infernalstudios.config.util.GenericType;
+import org.infernalstudios.config.util.ReflectionCache;
+
+/**
+ * A {@code Map<String, T>} element, stored as a table.
+ * Values can be of any type supported by {@link ValueCodecs}, including nested lists, maps and arrays.
+ */
+@SuppressWarnings("rawtypes")
+public class MapConfigElement extends ConfigElement<Map> {
+    private final IValueCodec<Map> codec;
+
+    public MapConfigElement(Field field, IConfigElementHandler<Map, ?> handler) {
+        super(field, handler);
+        GenericType genericType = ReflectionCache.of(field).getGenericType();
+        if (genericType.getTypeArgumentCount() != 2) {
+            throw new IllegalStateException("Map declared without generic type: " + field.toGenericString());
+        }
+
+        try {
+            this.codec = ValueCodecs.forType(genericType);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(String.format("%s\n\tat: %s", e.getMessage(), field.toGenericString()), e);
+        }
+    }
+
+    public IValueCodec<Map> getCodec() {
+        return this.codec;
+    }
+}
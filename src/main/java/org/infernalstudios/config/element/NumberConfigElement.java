@@ -37,10 +37,18 @@ public class NumberConfigElement<T extends Number> extends PrimitiveConfigElemen
         }
     }
 
+    public T getMin() {
+        return this.min;
+    }
+
+    public T getMax() {
+        return this.max;
+    }
+
     @Override
-    public String getComment() {
+    protected String formatComment() {
         StringBuilder s = new StringBuilder();
-        String comment = super.getComment();
+        String comment = super.formatComment();
         if (comment != null) {
             s.append(comment);
         }
@@ -71,6 +79,7 @@ public class NumberConfigElement<T extends Number> extends PrimitiveConfigElemen
         }
     }
 
+    @Override
     public boolean isValid(Object value) {
         if (value == null) {
             return true;
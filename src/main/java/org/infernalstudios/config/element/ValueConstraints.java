@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.element;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.infernalstudios.config.annotation.DoubleRange;
+import org.infernalstudios.config.annotation.FloatRange;
+import org.infernalstudios.config.annotation.IntegerRange;
+import org.infernalstudios.config.annotation.ListSize;
+import org.infernalstudios.config.annotation.StringLength;
+import org.infernalstudios.config.annotation.StringPattern;
+import org.infernalstudios.config.util.GenericType;
+import org.infernalstudios.config.util.ReflectionCache;
+import org.infernalstudios.config.util.ReflectionCache.FieldMetadata;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Constraints of an element from its {@link StringPattern @StringPattern}, {@link StringLength @StringLength} and {@link ListSize @ListSize} annotations,
+ * and for lists, its range annotations, compiled once when the element is created.
+ * <p>
+ * On list elements, the string and range constraints apply to every item in the list.
+ * String constraints can only be used on strings and lists of strings, and range constraints on lists of numbers.
+ */
+public final class ValueConstraints {
+    @Nullable
+    private final Pattern pattern;
+    private final int minLength;
+    private final int maxLength;
+    private final int minSize;
+    private final int maxSize;
+    private final boolean hasRange;
+    private final double min;
+    private final double max;
+    private final String description;
+
+    private ValueConstraints(Field field, @Nullable StringPattern pattern, @Nullable StringLength length, @Nullable ListSize size,
+            @Nullable Number min, @Nullable Number max) {
+        try {
+            this.pattern = pattern == null ? null : Pattern.compile(pattern.value());
+        } catch (PatternSyntaxException e) {
+            throw new IllegalStateException(String.format("Invalid pattern \"%s\"\n\tat: %s", pattern.value(), field.toGenericString()), e);
+        }
+        this.minLength = length == null ? 0 : length.min();
+        this.maxLength = length == null ? Integer.MAX_VALUE : length.max();
+        this.minSize = size == null ? 0 : size.min();
+        this.maxSize = size == null ? Integer.MAX_VALUE : size.max();
+        this.hasRange = min != null;
+        this.min = min == null ? Double.NEGATIVE_INFINITY : min.doubleValue();
+        this.max = max == null ? Double.POSITIVE_INFINITY : max.doubleValue();
+
+        StringBuilder description = new StringBuilder();
+        if (this.pattern != null) {
+            description.append(" Pattern: ").append(this.pattern.pattern());
+        }
+        if (length != null) {
+            appendBounds(description, "Length", this.minLength, this.maxLength);
+        }
+        if (size != null) {
+            appendBounds(description, "Size", this.minSize, this.maxSize);
+        }
+        if (this.hasRange) {
+            appendBounds(description, "Item range", min, max);
+        }
+        this.description = description.toString();
+    }
+
+    /**
+     * Compiles the constraints of {@code field}, or returns null if it has none.
+     *
+     * @throws IllegalStateException If a pattern is invalid, or a constraint cannot be checked for the type of the field or its items
+     */
+    @Nullable
+    public static ValueConstraints of(Field field) throws IllegalStateException {
+        FieldMetadata metadata = ReflectionCache.of(field);
+        StringPattern pattern = metadata.getAnnotation(StringPattern.class);
+        StringLength length = metadata.getAnnotation(StringLength.class);
+        ListSize size = metadata.getAnnotation(ListSize.class);
+
+        // Ranges of number fields are already checked by NumberConfigElement
+        Number min = null;
+        Number max = null;
+        if (List.class.isAssignableFrom(field.getType())) {
+            IntegerRange rangeI = metadata.getAnnotation(IntegerRange.class);
+            FloatRange rangeF = metadata.getAnnotation(FloatRange.class);
+            DoubleRange rangeD = metadata.getAnnotation(DoubleRange.class);
+            if (rangeI != null) {
+                min = rangeI.min();
+                max = rangeI.max();
+            } else if (rangeF != null) {
+                // The default minimum is the smallest positive value, which is shown as -inf, so it is treated as such
+                min = rangeF.min() == Float.MIN_VALUE ? Double.NEGATIVE_INFINITY : rangeF.min();
+                max = rangeF.max();
+            } else if (rangeD != null) {
+                min = rangeD.min() == Double.MIN_VALUE ? Double.NEGATIVE_INFINITY : rangeD.min();
+                max = rangeD.max();
+            }
+        }
+
+        if (pattern == null && length == null && size == null && min == null) {
+            return null;
+        }
+
+        // Other values are not checked by isValid, so the constraints would silently do nothing
+        Class<?> valueType = field.getType();
+        if (List.class.isAssignableFrom(valueType)) {
+            GenericType genericType = metadata.getGenericType();
+            valueType = genericType.getTypeArgumentCount() == 1 ? genericType.getTypeArgument(0).getRawType() : Object.class;
+        }
+        if ((pattern != null || length != null) && !String.class.equals(valueType)) {
+            throw new IllegalStateException(String.format("@StringPattern and @StringLength can only be used on strings and lists of strings\n\tat: %s",
+                    field.toGenericString()));
+        }
+        if (min != null && !Number.class.isAssignableFrom(valueType)) {
+            throw new IllegalStateException(String.format("Ranges can only be used on numbers and lists of numbers\n\tat: %s",
+                    field.toGenericString()));
+        }
+        if (size != null && !List.class.isAssignableFrom(field.getType())) {
+            throw new IllegalStateException(String.format("@ListSize can only be used on lists\n\tat: %s",
+                    field.toGenericString()));
+        }
+        return new ValueConstraints(field, pattern, length, size, min, max);
+    }
+
+    /**
+     * Checks a value of the element, or for lists, its size and every item in it.
+     */
+    public boolean isValid(@Nullable Object value) {
+        if (value instanceof List<?> list) {
+            if (list.size() < this.minSize || list.size() > this.maxSize) {
+                return false;
+            }
+            for (Object item : list) {
+                if (!this.isValidItem(item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return this.isValidItem(value);
+    }
+
+    private boolean isValidItem(@Nullable Object value) {
+        if (value instanceof String string) {
+            return string.length() >= this.minLength && string.length() <= this.maxLength
+                    && (this.pattern == null || this.pattern.matcher(string).matches());
+        } else if (this.hasRange && value instanceof Number number) {
+            double d = number.doubleValue();
+            return d >= this.min && d <= this.max;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a comment line describing the constraints, starting with a space.
+     */
+    public String getDescription() {
+        return this.description;
+    }
+
+    private static void appendBounds(StringBuilder description, String name, Number min, Number max) {
+        if (description.length() > 0) {
+            description.append('\n');
+        }
+        description.append(' ').append(name).append(": [");
+        description.append(isUnbounded(min) ? "-inf" : String.valueOf(min)).append(", ");
+        description.append(isUnbounded(max) ? "inf" : String.valueOf(max)).append(']');
+    }
+
+    private static boolean isUnbounded(Number bound) {
+        if (bound instanceof Integer i) {
+            return i == Integer.MIN_VALUE || i == Integer.MAX_VALUE;
+        }
+        double d = bound.doubleValue();
+        return Double.isInfinite(d) || d == Double.MAX_VALUE || d == Float.MAX_VALUE;
+    }
+}
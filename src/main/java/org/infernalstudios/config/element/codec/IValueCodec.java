@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.element.codec;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Converts values of a single type from and to TOML-serializable values.
+ * Codecs are resolved by {@link ValueCodecs#forType(org.infernalstudios.config.util.GenericType) ValueCodecs.forType},
+ * and are composed for nested types such as {@code List<Map<String, Foo>>}.
+ */
+public interface IValueCodec<T> {
+    /**
+     * Converts {@code value} to a TOML-serializable value.
+     */
+    Object encode(T value);
+
+    /**
+     * Converts a TOML-serializable value back. Returns null if {@code obj} cannot be converted.
+     */
+    @Nullable
+    T decode(Object obj);
+}
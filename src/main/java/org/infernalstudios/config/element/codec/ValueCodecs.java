@@ -0,0 +1,296 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.element.codec;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.annotation.AutoSerializable;
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.element.handler.AutoElementHandler;
+import org.infernalstudios.config.element.handler.IConfigElementHandler;
+import org.infernalstudios.config.util.GenericType;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Built-in codecs, and resolution of the codec for any supported type, see {@link ValueCodecs#forType(GenericType)}.
+ * <p>
+ * Codecs of classes are cached in a {@link ClassValue}, so they do not prevent classes from being unloaded.
+ * Codecs of parameterized and array types are composed from those, and are kept by the elements using them.
+ */
+public final class ValueCodecs {
+    private ValueCodecs() {}
+
+    private static final ClassValue<IValueCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected IValueCodec<?> computeValue(Class<?> type) {
+            return create(GenericType.of(type));
+        }
+    };
+
+    /**
+     * Passes values through unchanged, used for types without a more specific codec.
+     */
+    public static final IValueCodec<Object> IDENTITY = of(Function.identity(), Function.identity());
+
+    public static final IValueCodec<Boolean> BOOLEAN = of(value -> value, obj -> obj instanceof Boolean bool ? bool : null);
+    public static final IValueCodec<String> STRING = of(value -> value, obj -> obj instanceof CharSequence s ? s.toString() : null);
+    public static final IValueCodec<Integer> INTEGER = of(value -> value, obj -> obj instanceof Number number ? number.intValue() : null);
+    public static final IValueCodec<Long> LONG = of(value -> value, obj -> obj instanceof Number number ? number.longValue() : null);
+    public static final IValueCodec<Short> SHORT = of(value -> value, obj -> obj instanceof Number number ? number.shortValue() : null);
+    public static final IValueCodec<Byte> BYTE = of(value -> value, obj -> obj instanceof Number number ? number.byteValue() : null);
+    public static final IValueCodec<Float> FLOAT = of(value -> value, obj -> obj instanceof Number number ? number.floatValue() : null);
+    public static final IValueCodec<Double> DOUBLE = of(value -> value, obj -> obj instanceof Number number ? number.doubleValue() : null);
+
+    public static <T> IValueCodec<T> of(Function<T, Object> encoder, Function<Object, T> decoder) {
+        return new IValueCodec<>() {
+            @Override
+            public Object encode(T value) {
+                return encoder.apply(value);
+            }
+
+            @Override
+            public T decode(Object obj) {
+                return decoder.apply(obj);
+            }
+        };
+    }
+
+    /**
+     * Returns the codec for {@code type}, resolving codecs of any type arguments or array components.
+     * Codecs of classes are cached.
+     * 
+     * @throws IllegalArgumentException If {@code type} is a map without string keys
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> IValueCodec<T> forType(GenericType type) throws IllegalArgumentException {
+        if (type.getType() instanceof Class<?> clazz) {
+            return (IValueCodec<T>) CODECS.get(clazz);
+        }
+        return (IValueCodec<T>) create(type);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static IValueCodec<?> create(GenericType type) {
+        Class<?> clazz = type.getRawType();
+        if (Boolean.class.equals(clazz) || Boolean.TYPE.equals(clazz)) {
+            return BOOLEAN;
+        } else if (String.class.equals(clazz)) {
+            return STRING;
+        } else if (Integer.class.equals(clazz) || Integer.TYPE.equals(clazz)) {
+            return INTEGER;
+        } else if (Long.class.equals(clazz) || Long.TYPE.equals(clazz)) {
+            return LONG;
+        } else if (Short.class.equals(clazz) || Short.TYPE.equals(clazz)) {
+            return SHORT;
+        } else if (Byte.class.equals(clazz) || Byte.TYPE.equals(clazz)) {
+            return BYTE;
+        } else if (Float.class.equals(clazz) || Float.TYPE.equals(clazz)) {
+            return FLOAT;
+        } else if (Double.class.equals(clazz) || Double.TYPE.equals(clazz)) {
+            return DOUBLE;
+        } else if (clazz.isEnum()) {
+            return enumCodec((Class<? extends Enum>) clazz);
+        } else if (type.isArray()) {
+            return arrayCodec(type.getComponentType().getRawType(), forType(type.getComponentType()));
+        } else if (List.class.isAssignableFrom(clazz) && type.getTypeArgumentCount() == 1) {
+            return listCodec(forType(type.getTypeArgument(0)));
+        } else if (Map.class.isAssignableFrom(clazz) && type.getTypeArgumentCount() == 2) {
+            if (!String.class.equals(type.getTypeArgument(0).getRawType())) {
+                throw new IllegalArgumentException(String.format("Map keys must be of type String: %s", type));
+            }
+            return mapCodec(forType(type.getTypeArgument(1)));
+        } else if (clazz.isAnnotationPresent(AutoSerializable.class)) {
+            return autoCodec((AutoElementHandler<Object>) org.infernalstudios.config.Config.getHandler(clazz));
+        }
+        return IDENTITY;
+    }
+
+    private static <E extends Enum<E>> IValueCodec<E> enumCodec(Class<E> clazz) {
+        return of(Enum::name, obj -> {
+            if (obj instanceof String name) {
+                try {
+                    return Enum.valueOf(clazz, name);
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+            return null;
+        });
+    }
+
+    private static <E> IValueCodec<List<E>> listCodec(IValueCodec<E> elementCodec) {
+        return of(value -> {
+            List<Object> list = new ArrayList<>(value.size());
+            for (E element : value) {
+                if (element != null) {
+                    list.add(elementCodec.encode(element));
+                }
+            }
+            return list;
+        }, obj -> {
+            if (!(obj instanceof List<?> serialized)) {
+                return null;
+            }
+            List<E> list = new ArrayList<>(serialized.size());
+            for (Object element : serialized) {
+                E decoded = element == null ? null : elementCodec.decode(element);
+                if (decoded != null) {
+                    list.add(decoded);
+                }
+            }
+            return Collections.unmodifiableList(list);
+        });
+    }
+
+    private static <V> IValueCodec<Map<String, V>> mapCodec(IValueCodec<V> valueCodec) {
+        return of(value -> {
+            Config config = Config.inMemory();
+            for (Map.Entry<String, V> entry : value.entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    config.set(Collections.singletonList(entry.getKey()), valueCodec.encode(entry.getValue()));
+                }
+            }
+            return config;
+        }, obj -> {
+            if (!(obj instanceof UnmodifiableConfig serialized)) {
+                return null;
+            }
+            Map<String, V> map = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : serialized.valueMap().entrySet()) {
+                V decoded = entry.getValue() == null ? null : valueCodec.decode(entry.getValue());
+                if (decoded != null) {
+                    map.put(entry.getKey(), decoded);
+                }
+            }
+            return Collections.unmodifiableMap(map);
+        });
+    }
+
+    private static <E> IValueCodec<Object> arrayCodec(Class<?> componentType, IValueCodec<E> componentCodec) {
+        return of(value -> {
+            int length = Array.getLength(value);
+            List<Object> list = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                @SuppressWarnings("unchecked")
+                E element = (E) Array.get(value, i);
+                if (element != null) {
+                    list.add(componentCodec.encode(element));
+                }
+            }
+            return list;
+        }, obj -> {
+            if (!(obj instanceof List<?> serialized)) {
+                return null;
+            }
+            List<E> decoded = new ArrayList<>(serialized.size());
+            for (Object element : serialized) {
+                E value = element == null ? null : componentCodec.decode(element);
+                if (value != null) {
+                    decoded.add(value);
+                }
+            }
+            Object array = Array.newInstance(componentType, decoded.size());
+            for (int i = 0; i < decoded.size(); i++) {
+                Array.set(array, i, decoded.get(i));
+            }
+            return array;
+        });
+    }
+
+    private static <T> IValueCodec<T> autoCodec(AutoElementHandler<T> handler) {
+        return of(
+            value -> handler.serialize(new ValueElement<>(value, null)),
+            obj -> obj instanceof Config config ? handler.deserialize(new ValueElement<>(null, handler.hasDefaultConstructor() ? handler.createDefault() : null), config) : null
+        );
+    }
+
+    /**
+     * A detached element holding a single value, for handlers that (de)serialize through elements.
+     */
+    private static final class ValueElement<T> implements IConfigElement<T> {
+        @Nullable
+        private final T value;
+        @Nullable
+        private final T defaultValue;
+
+        private ValueElement(@Nullable T value, @Nullable T defaultValue) {
+            this.value = value;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public String getCategory() {
+            return "";
+        }
+
+        @Override
+        public String getTranslationKey() {
+            return "";
+        }
+
+        @Override
+        public T get() {
+            return this.value;
+        }
+
+        @Override
+        public T getFromField() {
+            return this.value;
+        }
+
+        @Override
+        public void set(@Nullable T value) {
+            throw new UnsupportedOperationException("Cannot set value of detached element");
+        }
+
+        @Override
+        public T getDefault() {
+            return this.defaultValue;
+        }
+
+        @Override
+        public String getComment() {
+            return "";
+        }
+
+        @Override
+        public boolean hasTag(String tag) {
+            return false;
+        }
+
+        @Override
+        @Nullable
+        public Field getField() {
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public IConfigElementHandler<T, ?> getTypeHandler() {
+            return null;
+        }
+    }
+}
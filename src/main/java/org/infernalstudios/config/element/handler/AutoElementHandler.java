@@ -1,57 +1,117 @@
 package org.infernalstudios.config.element.handler;
 
 import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
 import org.infernalstudios.config.Config;
 import org.infernalstudios.config.annotation.Configurable;
 import org.infernalstudios.config.element.ConfigElement;
 import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.util.ReflectionCache;
+import org.infernalstudios.config.util.Util;
 import org.infernalstudios.config.util.annotation.Nullable;
 
 import java.lang.reflect.*;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Serializes classes annotated with {@link org.infernalstudios.config.annotation.AutoSerializable @AutoSerializable} as tables.
+ * <p>
+ * Classes need a public no-arg constructor, and their public non-final fields with {@link Configurable @Configurable} are serialized.
+ * Records are built through their canonical constructor instead, and their components with {@link Configurable @Configurable} are serialized,
+ * while the others are copied from the default value.
+ * <p>
+ * Deserializing always creates a new instance, so values that were handed out are never changed by a reload.
+ */
 public class AutoElementHandler<T> implements IConfigElementHandler<T, com.electronwill.nightconfig.core.Config> {
     private final Class<T> clazz;
+    @Nullable
     private final Constructor<T> constructor;
-    private final List<String> fields = new ArrayList<>();
+    @Nullable
+    private final Constructor<T> canonicalConstructor;
+    private final Component[] components;
+    private final Component[] serializedComponents;
 
+    @SuppressWarnings("unchecked")
     public AutoElementHandler(Class<T> clazz) {
         this.clazz = clazz;
 
-        try {
-            this.constructor = clazz.getConstructor();
-        } catch (NoSuchMethodException e) {
-            throw new IllegalStateException("No default constructor found for class: " + clazz.getName(), e);
+        if (Modifier.isAbstract(clazz.getModifiers())) {
+            throw new IllegalStateException("Cannot generate auto-serializer for abstract class");
         }
 
-        if (!Modifier.isPublic(constructor.getModifiers())) {
-            throw new IllegalStateException("Default constructor is not public");
+        Constructor<T> constructor;
+        try {
+            constructor = clazz.getConstructor();
+        } catch (NoSuchMethodException e) {
+            constructor = null;
         }
 
-        if (Modifier.isAbstract(clazz.getModifiers())) {
-            throw new IllegalStateException("Cannot generate auto-serializer for abstract class");
+        List<Component> components = new ArrayList<>();
+        if (clazz.isRecord()) {
+            RecordComponent[] recordComponents = clazz.getRecordComponents();
+            Class<?>[] types = new Class<?>[recordComponents.length];
+            for (int i = 0; i < recordComponents.length; i++) {
+                RecordComponent component = recordComponents[i];
+                types[i] = component.getType();
+                Field field;
+                try {
+                    field = clazz.getDeclaredField(component.getName());
+                } catch (NoSuchFieldException e) {
+                    throw new IllegalStateException("Could not find field: " + component.getName(), e);
+                }
+                Method accessor = component.getAccessor();
+                accessor.setAccessible(true);
+                components.add(new Component(field, accessor, ReflectionCache.of(field).getAnnotation(Configurable.class) != null));
+            }
+            try {
+                this.canonicalConstructor = clazz.getDeclaredConstructor(types);
+                this.canonicalConstructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("No canonical constructor found for record: " + clazz.getName(), e);
+            }
+        } else {
+            if (constructor == null) {
+                throw new IllegalStateException("No default constructor found for class: " + clazz.getName());
+            }
+            if (!Modifier.isPublic(constructor.getModifiers())) {
+                throw new IllegalStateException("Default constructor is not public");
+            }
+            for (Field field : clazz.getDeclaredFields()) {
+                if (ReflectionCache.of(field).getAnnotation(Configurable.class) != null &&
+                        Modifier.isPublic(field.getModifiers()) &&
+                        !Modifier.isStatic(field.getModifiers()) &&
+                        !Modifier.isFinal(field.getModifiers())) {
+                    components.add(new Component(field, null, true));
+                }
+            }
+            this.canonicalConstructor = null;
         }
+        this.constructor = constructor;
+        this.components = components.toArray(new Component[0]);
+        this.serializedComponents = components.stream().filter(component -> component.serialized).toArray(Component[]::new);
 
-        Field[] fields = Arrays.stream(clazz.getDeclaredFields()).filter(
-            field ->
-                    field.isAnnotationPresent(Configurable.class) &&
-                    Modifier.isPublic(field.getModifiers()) &&
-                    !Modifier.isStatic(field.getModifiers()) &&
-                    !Modifier.isFinal(field.getModifiers())
-        ).toArray(Field[]::new);
-
-        if (fields.length == 0) {
+        if (this.serializedComponents.length == 0) {
             throw new IllegalStateException("No fields found to serialize");
         }
+    }
 
-        for (Field field : fields) {
-            this.fields.add(field.getName());
-        }
+    /**
+     * Returns true if {@link AutoElementHandler#createDefault() createDefault} can create instances.
+     */
+    public boolean hasDefaultConstructor() {
+        return this.constructor != null;
     }
 
+    /**
+     * Creates an instance with the public no-arg constructor.
+     *
+     * @throws IllegalStateException If there is no public no-arg constructor, such as for most records
+     */
     public T createDefault() {
+        if (this.constructor == null) {
+            throw new IllegalStateException("No default constructor found for class: " + this.clazz.getName());
+        }
         try {
             return this.constructor.newInstance();
         } catch (InstantiationException e) {
@@ -84,7 +144,6 @@ public class AutoElementHandler<T> implements IConfigElementHandler<T, com.elect
         return element;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public com.electronwill.nightconfig.core.Config serialize(IConfigElement<T> element) {
         CommentedConfig config = CommentedConfig.inMemory();
@@ -92,84 +151,201 @@ public class AutoElementHandler<T> implements IConfigElementHandler<T, com.elect
         if (value == null) {
             value = element.getDefault();
         }
+        T defaultValue = element.getDefault();
+
+        for (Component component : this.serializedComponents) {
+            Object componentValue = component.get(value);
+            ComponentElement<Object> componentElement = new ComponentElement<>(component, componentValue,
+                    defaultValue == null ? null : component.get(defaultValue));
+            config.set(component.name, component.handler.serialize(componentElement));
+            config.setComment(component.name, componentElement.getComment());
+        }
 
-        for (String fieldName : this.fields) {
-            Field field;
+        return config;
+    }
 
-            try {
-                field = this.clazz.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException e) {
-                throw new IllegalStateException("Could not find field: " + fieldName, e);
+    /**
+     * Creates a new instance from the values in {@code obj}.
+     * Missing or invalid values are taken from the default value of {@code element}, if it has none, null is returned.
+     */
+    @Nullable
+    @Override
+    public T deserialize(IConfigElement<T> element, com.electronwill.nightconfig.core.Config obj) {
+        T defaultValue = element.getDefault();
+        if (obj == null) {
+            return defaultValue;
+        }
+
+        Object[] values = new Object[this.components.length];
+        for (int i = 0; i < this.components.length; i++) {
+            Component component = this.components[i];
+            Object componentDefault = defaultValue == null ? null : component.get(defaultValue);
+            Object raw = component.serialized ? obj.get(component.name) : null;
+            Object value = null;
+            if (raw != null && component.handler.canHandle(raw.getClass())) {
+                value = component.handler.deserialize(new ComponentElement<>(component, componentDefault, componentDefault), raw);
+            }
+            if (value == null) {
+                if (defaultValue == null) {
+                    return null;
+                }
+                value = componentDefault;
+            }
+            values[i] = value;
+        }
+
+        return this.construct(values);
+    }
+
+    private T construct(Object[] values) {
+        try {
+            if (this.canonicalConstructor != null) {
+                return this.canonicalConstructor.newInstance(values);
             }
+            T value = this.createDefault();
+            for (int i = 0; i < this.components.length; i++) {
+                this.components[i].field.set(value, values[i]);
+            }
+            return value;
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Could not instantiate class", e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Field is not public", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Could not invoke constructor", e);
+        }
+    }
+
+    /**
+     * Accepts instances of the handled class, and the tables they are serialized to.
+     */
+    @Override
+    public boolean canHandle(Class<?> clazz) {
+        return this.clazz.isAssignableFrom(clazz) || UnmodifiableConfig.class.isAssignableFrom(clazz);
+    }
+
+    /**
+     * A field or record component, with its handler resolved once.
+     */
+    private static final class Component {
+        private final Field field;
+        @Nullable
+        private final Method accessor;
+        private final boolean serialized;
+        private final String name;
+        private final String translationKey;
+        private final String comment;
+        private final boolean showDefault;
+        private final IConfigElementHandler<Object, Object> handler;
 
-            IConfigElementHandler<Object, ?> handler = (IConfigElementHandler<Object, ?>) Config.getHandler(field.getType());
-            if (handler == null) {
-                throw new IllegalStateException("No handler found for field type");
+        @SuppressWarnings("unchecked")
+        private Component(Field field, @Nullable Method accessor, boolean serialized) {
+            this.field = field;
+            this.accessor = accessor;
+            this.serialized = serialized;
+            String category = Util.getCategory(field);
+            this.name = category.isEmpty() ? field.getName() : category + "." + field.getName();
+            Configurable configurable = ReflectionCache.of(field).getAnnotation(Configurable.class);
+            this.translationKey = configurable == null || configurable.translationKey().isEmpty() ? field.getName() : configurable.translationKey();
+            this.comment = configurable == null || configurable.description().isEmpty() ? "" : " " + configurable.description() + "\n";
+            this.showDefault = configurable != null && configurable.showDefault();
+            this.handler = (IConfigElementHandler<Object, Object>) Config.getHandler(field.getType());
+            if (this.handler == null && serialized) {
+                throw new IllegalStateException(String.format("No handler found for field type \"%s\"\n\tat: %s",
+                        field.getType().getName(), field.toGenericString()));
             }
+        }
 
-            IConfigElement<Object> virtualElement;
+        @Nullable
+        private Object get(Object instance) {
             try {
-                virtualElement = new VirtualAutoConfigElement<>(value, field, field.get(element.getDefault()));
+                return this.accessor != null ? this.accessor.invoke(instance) : this.field.get(instance);
             } catch (IllegalAccessException e) {
-                throw new IllegalStateException("Field is not public", e);
+                throw new IllegalStateException(String.format("Field is not public\n\tat: %s",
+                        this.field.toGenericString()), e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(String.format("Could not invoke accessor\n\tat: %s",
+                        this.field.toGenericString()), e);
             }
+        }
+    }
 
-            Object serialized = handler.serialize(virtualElement);
+    /**
+     * A detached element holding the value of a component while it is (de)serialized.
+     */
+    private static final class ComponentElement<T> implements IConfigElement<T> {
+        private final Component component;
+        @Nullable
+        private T value;
+        @Nullable
+        private final T defaultValue;
+
+        private ComponentElement(Component component, @Nullable T value, @Nullable T defaultValue) {
+            this.component = component;
+            this.value = value;
+            this.defaultValue = defaultValue;
+        }
 
-            config.set(virtualElement.getName(), serialized);
-            config.setComment(virtualElement.getName(), element.getComment());
+        @Override
+        public String getName() {
+            return this.component.name;
         }
 
-        return config;
-    }
+        @Override
+        public String getCategory() {
+            return Util.getCategory(this.component.field);
+        }
 
-    @SuppressWarnings("unchecked")
-    @Override
-    public T deserialize(IConfigElement<T> element, com.electronwill.nightconfig.core.Config obj) {
-        if (obj == null) {
-            return element.getDefault();
+        @Override
+        public String getTranslationKey() {
+            return this.component.translationKey;
         }
 
-        T value = element.getDefault();
+        @Nullable
+        @Override
+        public T get() {
+            return this.value;
+        }
 
-        for (String fieldName : this.fields) {
-            Field field;
+        @Nullable
+        @Override
+        public T getFromField() {
+            return this.value;
+        }
 
-            try {
-                field = this.clazz.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException e) {
-                throw new IllegalStateException("Could not find field: " + fieldName, e);
-            }
+        @Override
+        public void set(@Nullable T value) {
+            this.value = value;
+        }
 
-            IConfigElementHandler<Object, Object> handler = (IConfigElementHandler<Object, Object>) Config.getHandler(field.getType());
-            if (handler == null) {
-                throw new IllegalStateException("No handler found for field type");
-            }
+        @Override
+        public T getDefault() {
+            return this.defaultValue;
+        }
 
-            IConfigElement<Object> virtualElement;
-            try {
-                virtualElement = new VirtualAutoConfigElement<>(value, field, field.get(element.getDefault()));
-            } catch (IllegalAccessException e) {
-                throw new IllegalStateException("Field is not public", e);
+        @Override
+        public String getComment() {
+            if (!this.component.showDefault || this.defaultValue == null) {
+                return this.component.comment;
             }
+            return this.component.comment + " Default: " + this.defaultValue;
+        }
 
-            if (handler.canHandle(obj.get(fieldName).getClass())) {
-                handler.update(virtualElement, handler.deserialize(virtualElement, obj.get(fieldName)));
-            } else {
-                try {
-                    field.set(value, handler.deserialize(virtualElement, handler.serialize(virtualElement)));
-                } catch (IllegalAccessException e) {
-                    throw new IllegalStateException("Field is not public", e);
-                }
-            }
+        @Override
+        public boolean hasTag(String tag) {
+            return false;
         }
 
-        return value;
-    }
+        @Override
+        public Field getField() {
+            return this.component.field;
+        }
 
-    @Override
-    public boolean canHandle(Class<?> clazz) {
-        return (this.clazz.equals(clazz) || this.clazz.isAssignableFrom(clazz));
+        @SuppressWarnings("unchecked")
+        @Override
+        public IConfigElementHandler<T, ?> getTypeHandler() {
+            return (IConfigElementHandler<T, ?>) (IConfigElementHandler<?, ?>) this.component.handler;
+        }
     }
 
     public static class VirtualAutoConfigElement<T> extends ConfigElement<T> {
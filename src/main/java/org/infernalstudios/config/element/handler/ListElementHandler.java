@@ -16,8 +16,10 @@
 package org.infernalstudios.config.element.handler;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import java.util.function.Function;
 
 import org.infernalstudios.config.element.IConfigElement;
 import org.infernalstudios.config.element.ListConfigElement;
@@ -50,7 +52,7 @@ public final class ListElementHandler implements IConfigElementHandler<List, Lis
         }
 
         if (element instanceof ListConfigElement listConfigElement && listConfigElement.serializeHandler != null) {
-            value = value.stream().map(listConfigElement.serializeHandler).filter(Objects::nonNull).toList();
+            value = map(value, listConfigElement.serializeHandler);
         }
 
         return value;
@@ -64,12 +66,26 @@ public final class ListElementHandler implements IConfigElementHandler<List, Lis
         }
 
         if (element instanceof ListConfigElement listConfigElement && listConfigElement.deserializeHandler != null) {
-            obj = obj.stream().map(listConfigElement.deserializeHandler).filter(Objects::nonNull).toList();
+            obj = map(obj, listConfigElement.deserializeHandler);
         }
 
         return obj;
     }
 
+    /**
+     * Maps all items of {@code list} with {@code mapper} into an unmodifiable list, skipping null results.
+     */
+    private static List<Object> map(List<?> list, Function<Object, Object> mapper) {
+        List<Object> mapped = new ArrayList<>(list.size());
+        for (Object item : list) {
+            Object value = mapper.apply(item);
+            if (value != null) {
+                mapped.add(value);
+            }
+        }
+        return Collections.unmodifiableList(mapped);
+    }
+
     @Override
     public boolean canHandle(Class<?> clazz) {
         return (List.class.equals(clazz) || List.class.isAssignableFrom(clazz));
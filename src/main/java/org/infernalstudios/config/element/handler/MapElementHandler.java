@@ -0,0 +1,65 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.element.handler;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.element.MapConfigElement;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+@SuppressWarnings("rawtypes")
+public final class MapElementHandler implements IConfigElementHandler<Map, Config> {
+    public static final MapElementHandler INSTANCE = new MapElementHandler();
+    private MapElementHandler() {}
+
+    @Override
+    public IConfigElement<Map> create(Field field) {
+        return new MapConfigElement(field, this);
+    }
+
+    @Override
+    public IConfigElement<Map> update(IConfigElement<Map> element, @Nullable Map obj) {
+        if (obj != null) {
+            element.set(obj);
+        }
+        return element;
+    }
+
+    @Override
+    public Config serialize(IConfigElement<Map> element) {
+        Map value = element.getFromField();
+        if (value == null) {
+            value = element.getDefault();
+        }
+        return (Config) ((MapConfigElement) element).getCodec().encode(value);
+    }
+
+    @Override
+    public Map deserialize(IConfigElement<Map> element, Config obj) {
+        Map value = obj == null ? null : ((MapConfigElement) element).getCodec().decode(obj);
+        return value == null ? element.getDefault() : value;
+    }
+
+    @Override
+    public boolean canHandle(Class<?> clazz) {
+        return Map.class.isAssignableFrom(clazz) || UnmodifiableConfig.class.isAssignableFrom(clazz);
+    }
+}
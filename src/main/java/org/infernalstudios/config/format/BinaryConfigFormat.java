@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.format;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.util.BinaryValues;
+
+/**
+ * A compact binary format for configs that are not meant to be edited by hand.
+ * Values are stored with {@link BinaryValues}, comments are not stored.
+ */
+public final class BinaryConfigFormat implements IConfigFormat {
+    public static final BinaryConfigFormat INSTANCE = new BinaryConfigFormat();
+    private BinaryConfigFormat() {}
+
+    private static final int MAGIC = 0x49434647; // "ICFG"
+    private static final byte VERSION = 1;
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("bin");
+    }
+
+    @Override
+    public boolean supportsComments() {
+        return false;
+    }
+
+    @Override
+    public void read(InputStream input, CommentedConfig destination) throws IOException {
+        destination.clear();
+        DataInputStream in = new DataInputStream(input);
+        int magic;
+        try {
+            magic = in.readInt();
+        } catch (EOFException e) {
+            return; // Empty file
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a binary config file");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported binary config version %d", version));
+        }
+        BinaryValues.readTable(in, destination);
+    }
+
+    @Override
+    public void write(UnmodifiableConfig config, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        BinaryValues.writeTable(out, config);
+        out.flush();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * A file format a {@link org.infernalstudios.config.Config Config} can be stored in.
+ * <p>
+ * Formats are registered with {@link org.infernalstudios.config.Config#registerFormat(IConfigFormat) Config.registerFormat},
+ * and are chosen by file extension unless one is given with {@link org.infernalstudios.config.ConfigBuilder#format(IConfigFormat) ConfigBuilder.format}.
+ */
+public interface IConfigFormat {
+    /**
+     * Returns the file extensions of this format, without the leading dot.
+     */
+    List<String> getExtensions();
+
+    /**
+     * Determines whether element comments are stored by this format.
+     */
+    boolean supportsComments();
+
+    /**
+     * Reads all values from {@code input} into {@code destination}.
+     * An empty input must result in an empty config.
+     * @throws IOException If the input cannot be read or is malformed.
+     */
+    void read(InputStream input, CommentedConfig destination) throws IOException;
+
+    /**
+     * Writes all values of {@code config} to {@code output}, including comments if supported.
+     * @throws IOException If the output cannot be written to.
+     */
+    void write(UnmodifiableConfig config, OutputStream output) throws IOException;
+
+    /**
+     * Replaces the values of the keys in {@code changes} in {@code text}, which was last read or written in this format,
+     * keeping the rest of it unchanged. Keys are dot-separated paths.
+     * <p>
+     * Returns null if the text cannot be patched, in which case the whole config is written instead. Defaults to null.
+     */
+    @Nullable
+    default String patch(String text, Map<String, Object> changes) {
+        return null;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.ParsingMode;
+import com.electronwill.nightconfig.core.io.WritingException;
+import com.electronwill.nightconfig.toml.TomlFormat;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * The default format, backed by night-config's TOML parser and writer.
+ */
+public final class TomlConfigFormat implements IConfigFormat {
+    public static final TomlConfigFormat INSTANCE = new TomlConfigFormat();
+    private TomlConfigFormat() {}
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("toml");
+    }
+
+    @Override
+    public boolean supportsComments() {
+        return true;
+    }
+
+    @Override
+    public void read(InputStream input, CommentedConfig destination) throws IOException {
+        try {
+            TomlFormat.instance().createParser().parse(new InputStreamReader(input, StandardCharsets.UTF_8), destination, ParsingMode.REPLACE);
+        } catch (ParsingException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void write(UnmodifiableConfig config, OutputStream output) throws IOException {
+        Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        try {
+            TomlFormat.instance().createWriter().write(config, writer);
+        } catch (WritingException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Replaces only the changed values, keeping formatting and comments, see {@link TomlPatcher}.
+     */
+    @Nullable
+    @Override
+    public String patch(String text, Map<String, Object> changes) {
+        return TomlPatcher.patch(text, changes);
+    }
+}
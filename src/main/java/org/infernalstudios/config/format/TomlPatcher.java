@@ -0,0 +1,270 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.format;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+import com.electronwill.nightconfig.core.io.WritingException;
+import com.electronwill.nightconfig.toml.TomlFormat;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Replaces the values of keys in TOML text, keeping everything else, such as formatting, comments and key order, unchanged.
+ * <p>
+ * Only key-value pairs are scanned, so values that are tables or arrays of tables, or files containing arrays of tables, cannot be patched.
+ */
+final class TomlPatcher {
+    private TomlPatcher() {}
+
+    private static final String RENDER_KEY = "v";
+
+    /**
+     * Returns {@code text} with the values of all keys in {@code changes} replaced, or null if any of them cannot be patched.
+     */
+    @Nullable
+    static String patch(String text, Map<String, Object> changes) {
+        Map<List<String>, String> rendered = new HashMap<>();
+        for (Map.Entry<String, Object> entry : changes.entrySet()) {
+            String value = render(entry.getValue());
+            if (value == null) {
+                return null;
+            }
+            rendered.put(Arrays.asList(entry.getKey().split("\\.")), value);
+        }
+
+        Scanner scanner = new Scanner(text);
+        StringBuilder result = new StringBuilder(text.length() + 64);
+        int copied = 0;
+        int found = 0;
+        List<String> table = Collections.emptyList();
+        while (scanner.skipBlank()) {
+            char c = scanner.peek();
+            if (c == '\r' || c == '\n') {
+                scanner.pos++;
+            } else if (c == '#') {
+                scanner.skipLine();
+            } else if (c == '[') {
+                scanner.pos++;
+                if (scanner.pos < text.length() && scanner.peek() == '[') {
+                    return null;
+                }
+                List<String> header = scanner.readKey();
+                scanner.skipBlank();
+                if (header == null || !scanner.expect(']')) {
+                    return null;
+                }
+                table = header;
+                scanner.skipLine();
+            } else {
+                List<String> key = scanner.readKey();
+                scanner.skipBlank();
+                if (key == null || !scanner.expect('=')) {
+                    return null;
+                }
+                scanner.skipBlank();
+                int start = scanner.pos;
+                int end = scanner.skipValue();
+                if (end < 0) {
+                    return null;
+                }
+                List<String> path = new ArrayList<>(table.size() + key.size());
+                path.addAll(table);
+                path.addAll(key);
+                String value = rendered.get(path);
+                if (value != null) {
+                    result.append(text, copied, start).append(value);
+                    copied = end;
+                    found++;
+                }
+                scanner.skipLine();
+            }
+        }
+        if (found != rendered.size()) {
+            return null;
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * Renders a single value with night-config's TOML writer, or returns null if it is not written inline.
+     */
+    @Nullable
+    private static String render(Object value) {
+        if (value instanceof UnmodifiableConfig) {
+            return null;
+        }
+        CommentedConfig config = CommentedConfig.inMemory();
+        config.set(Collections.singletonList(RENDER_KEY), value);
+        StringWriter writer = new StringWriter();
+        try {
+            TomlFormat.instance().createWriter().write(config, writer);
+        } catch (WritingException e) {
+            return null;
+        }
+        String line = writer.toString().strip();
+        String prefix = RENDER_KEY + " = ";
+        if (!line.startsWith(prefix) || line.indexOf('\n') >= 0) {
+            return null;
+        }
+        return line.substring(prefix.length());
+    }
+
+    private static final class Scanner {
+        private final String text;
+        private int pos = 0;
+
+        private Scanner(String text) {
+            this.text = text;
+        }
+
+        private char peek() {
+            return this.text.charAt(this.pos);
+        }
+
+        /**
+         * Skips spaces and tabs, and returns false if the end of the text was reached.
+         */
+        private boolean skipBlank() {
+            while (this.pos < this.text.length() && (this.peek() == ' ' || this.peek() == '\t')) {
+                this.pos++;
+            }
+            return this.pos < this.text.length();
+        }
+
+        private boolean expect(char c) {
+            if (this.pos < this.text.length() && this.peek() == c) {
+                this.pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipLine() {
+            while (this.pos < this.text.length() && this.peek() != '\n') {
+                this.pos++;
+            }
+        }
+
+        /**
+         * Reads a dotted key of bare and quoted parts, or returns null if it is malformed.
+         */
+        @Nullable
+        private List<String> readKey() {
+            List<String> parts = new ArrayList<>();
+            do {
+                this.skipBlank();
+                if (this.pos >= this.text.length()) {
+                    return null;
+                }
+                char c = this.peek();
+                int start = this.pos;
+                if (c == '"' || c == '\'') {
+                    int end = this.text.indexOf(c, start + 1);
+                    if (end < 0 || (c == '"' && this.text.substring(start + 1, end).indexOf('\\') >= 0)) {
+                        return null;
+                    }
+                    parts.add(this.text.substring(start + 1, end));
+                    this.pos = end + 1;
+                } else {
+                    while (this.pos < this.text.length() && isBareKeyChar(this.peek())) {
+                        this.pos++;
+                    }
+                    if (this.pos == start) {
+                        return null;
+                    }
+                    parts.add(this.text.substring(start, this.pos));
+                }
+                this.skipBlank();
+            } while (this.expect('.'));
+            return parts;
+        }
+
+        /**
+         * Skips a value, which may span multiple lines, and returns the end of it without trailing blanks and comments,
+         * or -1 if it is malformed.
+         */
+        private int skipValue() {
+            int depth = 0;
+            int end = this.pos;
+            while (this.pos < this.text.length()) {
+                char c = this.peek();
+                if (c == '"' || c == '\'') {
+                    boolean multiline = this.text.startsWith(String.valueOf(c).repeat(3), this.pos);
+                    if (!this.skipString(c, multiline)) {
+                        return -1;
+                    }
+                    end = this.pos;
+                    continue;
+                } else if (c == '#') {
+                    if (depth == 0) {
+                        return end;
+                    }
+                    this.skipLine();
+                    continue;
+                } else if (c == '\n' || c == '\r') {
+                    if (depth == 0) {
+                        return end;
+                    }
+                } else if (c == '[' || c == '{') {
+                    depth++;
+                } else if (c == ']' || c == '}') {
+                    depth--;
+                }
+                this.pos++;
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    end = this.pos;
+                }
+            }
+            return depth == 0 ? end : -1;
+        }
+
+        private boolean skipString(char quote, boolean multiline) {
+            String delimiter = multiline ? String.valueOf(quote).repeat(3) : String.valueOf(quote);
+            this.pos += delimiter.length();
+            while (this.pos < this.text.length()) {
+                char c = this.peek();
+                if (c == '\\' && quote == '"') {
+                    this.pos += 2;
+                } else if (this.text.startsWith(delimiter, this.pos)) {
+                    this.pos += delimiter.length();
+                    // Multi-line strings may end with up to two additional quotes
+                    while (multiline && this.pos < this.text.length() && this.peek() == quote) {
+                        this.pos++;
+                    }
+                    return true;
+                } else if (!multiline && c == '\n') {
+                    return false;
+                } else {
+                    this.pos++;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isBareKeyChar(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.infernalstudios.config.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.electronwill.nightconfig.core.Config;
+import com.electronwill.nightconfig.core.UnmodifiableConfig;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Compact binary encoding for TOML-serializable values, as produced by
+ * {@link org.infernalstudios.config.element.handler.IConfigElementHandler#serialize(org.infernalstudios.config.element.IConfigElement) IConfigElementHandler#serialize}.
+ * <p>
+ * Integers are written as zig-zag varints, strings as a varint length followed by UTF-8 bytes,
+ * lists and tables as a varint size followed by their entries.
+ */
+public final class BinaryValues {
+    private BinaryValues() {}
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte FLOAT = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte STRING = 7;
+    private static final byte LIST = 8;
+    private static final byte TABLE = 9;
+
+    /**
+     * The largest string length, list size or table size that is read, so corrupt or hostile input cannot claim huge lengths.
+     */
+    private static final int MAX_LENGTH = 1 << 24;
+    /**
+     * Strings longer than this are read in growing chunks, so only as much memory is allocated as the input actually contains.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt is too long");
+    }
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarLong is too long");
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = readLength(in, "string length");
+        byte[] bytes = new byte[Math.min(length, CHUNK_SIZE)];
+        in.readFully(bytes);
+        while (bytes.length < length) {
+            int read = bytes.length;
+            bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * read));
+            in.readFully(bytes, read, bytes.length - read);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a length or size, and checks that it is not negative or larger than {@link #MAX_LENGTH}.
+     */
+    private static int readLength(DataInput in, String kind) throws IOException {
+        int length = readVarInt(in);
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException(String.format("Invalid %s %d", kind, length));
+        }
+        return length;
+    }
+
+    /**
+     * Writes a TOML-serializable value.
+     * @throws IllegalArgumentException If the value is not of a supported type.
+     */
+    public static void writeValue(DataOutput out, @Nullable Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TRUE : FALSE);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            int i = ((Number) value).intValue();
+            out.writeByte(INT);
+            writeVarInt(out, (i << 1) ^ (i >> 31));
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            writeVarLong(out, (l << 1) ^ (l >> 63));
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof Number number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number.doubleValue());
+        } else if (value instanceof CharSequence || value instanceof Character || value instanceof Enum) {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof UnmodifiableConfig config) {
+            out.writeByte(TABLE);
+            writeTable(out, config);
+        } else {
+            throw new IllegalArgumentException(String.format("Cannot encode value of type %s", value.getClass().getName()));
+        }
+    }
+
+    /**
+     * Writes the entries of a table, without a leading type tag.
+     */
+    public static void writeTable(DataOutput out, UnmodifiableConfig config) throws IOException {
+        Map<String, Object> values = config.valueMap();
+        writeVarInt(out, values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            writeString(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    @Nullable
+    public static Object readValue(DataInput in) throws IOException {
+        return readValue(in, null);
+    }
+
+    /**
+     * Reads a value, creating any tables as sub-configs of {@code parent} if it is given.
+     */
+    @Nullable
+    public static Object readValue(DataInput in, @Nullable Config parent) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INT: {
+                int i = readVarInt(in);
+                return (i >>> 1) ^ -(i & 1);
+            }
+            case LONG: {
+                long l = readVarLong(in);
+                return (l >>> 1) ^ -(l & 1);
+            }
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readString(in);
+            case LIST: {
+                int size = readLength(in, "list size");
+                List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, parent));
+                }
+                return list;
+            }
+            case TABLE: {
+                Config config = parent == null ? Config.inMemory() : parent.createSubConfig();
+                readTable(in, config);
+                return config;
+            }
+            default:
+                throw new IOException(String.format("Unknown value tag %d", tag));
+        }
+    }
+
+    /**
+     * Reads the entries of a table written by {@link #writeTable(DataOutput, UnmodifiableConfig) writeTable} into {@code destination}.
+     */
+    public static void readTable(DataInput in, Config destination) throws IOException {
+        int size = readLength(in, "table size");
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            destination.set(Collections.singletonList(key), readValue(in, destination));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.infernalstudios.config.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Objects;
+
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * A fully resolved generic type, such as {@code List<Map<String, int[]>>}.
+ * <p>
+ * Wildcards and type variables are resolved to their upper bound.
+ * Instances can be compared with {@link Object#equals(Object) equals}.
+ * Instances for classes are cached in a {@link ClassValue}, so they do not prevent classes from being unloaded.
+ * Other types are cached per field by {@link ReflectionCache.FieldMetadata#getGenericType()}.
+ */
+public final class GenericType {
+    private static final ClassValue<GenericType> CLASSES = new ClassValue<>() {
+        @Override
+        protected GenericType computeValue(Class<?> type) {
+            return new GenericType(type);
+        }
+    };
+    private static final GenericType[] NO_ARGUMENTS = new GenericType[0];
+
+    private final Type type;
+    private final Class<?> rawType;
+    private final GenericType[] typeArguments;
+    @Nullable
+    private final GenericType componentType;
+
+    private GenericType(Type type) {
+        this.type = type;
+        if (type instanceof Class<?> clazz) {
+            this.rawType = clazz;
+            this.typeArguments = NO_ARGUMENTS;
+            this.componentType = clazz.isArray() ? of(clazz.getComponentType()) : null;
+        } else if (type instanceof ParameterizedType parameterized) {
+            this.rawType = of(parameterized.getRawType()).getRawType();
+            Type[] arguments = parameterized.getActualTypeArguments();
+            this.typeArguments = new GenericType[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                this.typeArguments[i] = of(arguments[i]);
+            }
+            this.componentType = null;
+        } else if (type instanceof GenericArrayType array) {
+            this.componentType = of(array.getGenericComponentType());
+            this.rawType = Array.newInstance(this.componentType.getRawType(), 0).getClass();
+            this.typeArguments = NO_ARGUMENTS;
+        } else if (type instanceof WildcardType wildcard) {
+            GenericType bound = of(wildcard.getUpperBounds()[0]);
+            this.rawType = bound.rawType;
+            this.typeArguments = bound.typeArguments;
+            this.componentType = bound.componentType;
+        } else if (type instanceof TypeVariable<?> variable) {
+            // Only the raw bound is used, as bounds can refer back to the variable, such as T extends Comparable<T>
+            Type bound = variable.getBounds()[0];
+            if (bound instanceof ParameterizedType parameterized) {
+                bound = parameterized.getRawType();
+            }
+            this.rawType = bound instanceof Class<?> clazz ? clazz : Object.class;
+            this.typeArguments = NO_ARGUMENTS;
+            this.componentType = null;
+        } else {
+            throw new IllegalArgumentException(String.format("Unsupported type %s", type.getTypeName()));
+        }
+    }
+
+    public static GenericType of(Type type) {
+        Objects.requireNonNull(type, "type must not be null");
+        if (type instanceof Class<?> clazz) {
+            return CLASSES.get(clazz);
+        }
+        return new GenericType(type);
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public Class<?> getRawType() {
+        return this.rawType;
+    }
+
+    public int getTypeArgumentCount() {
+        return this.typeArguments.length;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException If there is no type argument at {@code index}
+     */
+    public GenericType getTypeArgument(int index) throws IndexOutOfBoundsException {
+        return this.typeArguments[index];
+    }
+
+    /**
+     * Returns the component type if this is an array type, otherwise null.
+     */
+    @Nullable
+    public GenericType getComponentType() {
+        return this.componentType;
+    }
+
+    public boolean isArray() {
+        return this.componentType != null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof GenericType other && this.type.equals(other.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.type.getTypeName();
+    }
+}
@@ -0,0 +1,141 @@
+package org.infernalstudios.config.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.infernalstudios.config.annotation.Category;
+import org.infernalstudios.config.annotation.Configurable;
+import org.infernalstudios.config.util.annotation.Nullable;
+
+/**
+ * Caches resolved reflection metadata of classes and fields, so building many configs from the same classes pays each reflection cost once.
+ * <p>
+ * Metadata is stored in a {@link ClassValue}, so it does not prevent classes from being unloaded.
+ */
+public final class ReflectionCache {
+    private ReflectionCache() {}
+
+    private static final ClassValue<ClassMetadata> CLASSES = new ClassValue<>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    public static ClassMetadata of(Class<?> clazz) {
+        Objects.requireNonNull(clazz, "clazz must not be null");
+        return CLASSES.get(clazz);
+    }
+
+    public static FieldMetadata of(Field field) {
+        Objects.requireNonNull(field, "field must not be null");
+        return of(field.getDeclaringClass()).getField(field);
+    }
+
+    public static final class ClassMetadata {
+        private final Class<?> clazz;
+        private final Map<String, FieldMetadata> fields = new ConcurrentHashMap<>();
+        private volatile String category;
+
+        private ClassMetadata(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        /**
+         * Returns the category of this class, including the categories of all declaring classes.
+         */
+        public String getCategory() {
+            String category = this.category;
+            if (category == null) {
+                Category annotation = this.clazz.getAnnotation(Category.class);
+                category = annotation != null ? annotation.value() : "";
+                Class<?> declaringClass = this.clazz.getDeclaringClass();
+                if (declaringClass != null) {
+                    String superCategory = of(declaringClass).getCategory();
+                    if ("".equals(category)) {
+                        category = superCategory;
+                    } else if (!"".equals(superCategory)) {
+                        category = superCategory + "." + category;
+                    }
+                }
+                this.category = category;
+            }
+            return category;
+        }
+
+        FieldMetadata getField(Field field) {
+            return this.fields.computeIfAbsent(field.getName(), name -> new FieldMetadata(this, field));
+        }
+    }
+
+    public static final class FieldMetadata {
+        private final ClassMetadata declaringClass;
+        private final Field field;
+        private final Map<Class<? extends Annotation>, Optional<Annotation>> annotations = new ConcurrentHashMap<>();
+        private volatile String category;
+        private volatile GenericType genericType;
+
+        private FieldMetadata(ClassMetadata declaringClass, Field field) {
+            this.declaringClass = declaringClass;
+            this.field = field;
+        }
+
+        /**
+         * Returns the annotation of the given type on this field, or null if it is not present.
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public <A extends Annotation> A getAnnotation(Class<A> annotationClass) {
+            return (A) this.annotations.computeIfAbsent(annotationClass, clazz -> Optional.ofNullable(this.field.getAnnotation(clazz))).orElse(null);
+        }
+
+        /**
+         * Returns the category of this field, including the categories of all declaring classes.
+         */
+        public String getCategory() {
+            String category = this.category;
+            if (category == null) {
+                Configurable configurable = this.getAnnotation(Configurable.class);
+                category = configurable != null ? configurable.category() : "";
+                String superCategory = this.declaringClass.getCategory();
+                if ("".equals(category)) {
+                    category = superCategory;
+                } else if (!"".equals(superCategory)) {
+                    category = superCategory + "." + category;
+                }
+                this.category = category;
+            }
+            return category;
+        }
+
+        /**
+         * Returns the fully resolved generic type of this field.
+         */
+        public GenericType getGenericType() {
+            GenericType genericType = this.genericType;
+            if (genericType == null) {
+                genericType = GenericType.of(this.field.getGenericType());
+                this.genericType = genericType;
+            }
+            return genericType;
+        }
+
+        /**
+         * Returns the raw class of the generic type argument at {@code genericIndex}.
+         *
+         * @throws ClassNotFoundException    If the field type is not parameterized
+         * @throws IndexOutOfBoundsException If there is no type argument at {@code genericIndex}
+         */
+        public Class<?> getGenericClass(int genericIndex) throws ClassNotFoundException, IndexOutOfBoundsException {
+            GenericType genericType = this.getGenericType();
+            if (genericType.getTypeArgumentCount() == 0) {
+                throw new ClassNotFoundException("Field type declared without generic type");
+            }
+            return genericType.getTypeArgument(genericIndex).getRawType();
+        }
+    }
+}
@@ -1,12 +1,8 @@
 package org.infernalstudios.config.util;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.Objects;
 
-import org.infernalstudios.config.annotation.Category;
-import org.infernalstudios.config.annotation.Configurable;
 import org.infernalstudios.config.util.annotation.Nullable;
 
 public final class Util {
@@ -23,18 +19,7 @@ public final class Util {
 
     @Nullable
     public static Class<?> getGenericClass(Field field, int genericIndex) throws ClassNotFoundException, IndexOutOfBoundsException {
-        ParameterizedType parameterized;
-        try {
-            parameterized = (ParameterizedType) field.getGenericType();
-        } catch (ClassCastException e) {
-            throw new ClassNotFoundException("Field type declared without generic type", e);
-        }
-        Type[] typeArgs = parameterized.getActualTypeArguments();
-        String genericTypeName = typeArgs[genericIndex].getTypeName();
-        String typeName = genericTypeName.contains("<") ?
-                genericTypeName.substring(0, genericTypeName.indexOf("<")) :
-                genericTypeName;
-        return Class.forName(typeName);
+        return ReflectionCache.of(field).getGenericClass(genericIndex);
     }
 
     @Nullable
@@ -80,45 +65,10 @@ public final class Util {
     }
 
     public static String getCategory(Field field) {
-        Objects.requireNonNull(field, "field must not be null");
-        Configurable configurable = field.getAnnotation(Configurable.class);
-        String category;
-        if (configurable != null) {
-            category = configurable.category();
-        } else {
-            category = "";
-        }
-        if ("".equals(category)) {
-            category = getCategory(field.getDeclaringClass());
-        } else {
-            String superCategory = getCategory(field.getDeclaringClass());
-            if (!"".equals(superCategory)) {
-                category = superCategory + "." + category;
-            }
-        }
-        return category;
+        return ReflectionCache.of(field).getCategory();
     }
 
     public static String getCategory(Class<?> clazz) {
-        Objects.requireNonNull(clazz, "clazz must not be null");
-        Category configurable = clazz.getAnnotation(Category.class);
-        String category;
-        if (configurable != null) {
-            category = configurable.value();
-        } else {
-            category = "";
-        }
-        Class<?> clazz2 = clazz.getDeclaringClass();
-        if (clazz2 != null) {
-            if ("".equals(category)) {
-                category = getCategory(clazz2);
-            } else {
-                String superCategory = getCategory(clazz2);
-                if (!"".equals(superCategory)) {
-                    category = superCategory + "." + category;
-                }
-            }
-        }
-        return category;
+        return ReflectionCache.of(clazz).getCategory();
     }
 }
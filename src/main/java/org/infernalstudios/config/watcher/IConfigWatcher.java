@@ -0,0 +1,35 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.watcher;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Watches config files for changes made outside of the config.
+ */
+public interface IConfigWatcher {
+    /**
+     * Runs {@code onChange} whenever the file at {@code path} changes, replacing any previous watch of the same file.
+     * @throws IOException If the file cannot be watched
+     */
+    void addWatch(Path path, Runnable onChange) throws IOException;
+
+    /**
+     * Stops watching the file at {@code path}. Does nothing if it is not watched.
+     */
+    void removeWatch(Path path);
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.watcher;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.electronwill.nightconfig.core.file.FileWatcher;
+
+/**
+ * Watches files with night-config's default {@link FileWatcher}, which uses a {@link java.nio.file.WatchService}.
+ */
+public final class NightConfigWatcher implements IConfigWatcher {
+    public static final NightConfigWatcher INSTANCE = new NightConfigWatcher();
+    private NightConfigWatcher() {}
+
+    @Override
+    public void addWatch(Path path, Runnable onChange) throws IOException {
+        FileWatcher.defaultInstance().addWatch(path, onChange);
+    }
+
+    @Override
+    public void removeWatch(Path path) {
+        FileWatcher.defaultInstance().removeWatch(path);
+    }
+}
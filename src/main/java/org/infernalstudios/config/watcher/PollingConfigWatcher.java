@@ -0,0 +1,162 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.watcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Watches files by scanning all of them from a single thread, for file systems where a {@link java.nio.file.WatchService} misses changes,
+ * such as network or overlay file systems.
+ * <p>
+ * Each scan compares the size and modification time of every file, and only reads a file to compare a hash of its contents when those changed.
+ * The interval between scans doubles up to the maximum while nothing changes, and drops back to the minimum when a file changed.
+ */
+public final class PollingConfigWatcher implements IConfigWatcher {
+    /**
+     * A shared watcher scanning between every 500 milliseconds and 5 seconds.
+     */
+    public static final PollingConfigWatcher INSTANCE = new PollingConfigWatcher(500, 5000);
+
+    private final long minInterval;
+    private final long maxInterval;
+    private final Map<Path, Watch> watches = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private long interval;
+
+    /**
+     * @param minInterval The minimum time between scans, in milliseconds
+     * @param maxInterval The maximum time between scans, in milliseconds
+     * @throws IllegalArgumentException If the intervals are not positive, or the minimum is greater than the maximum
+     */
+    public PollingConfigWatcher(long minInterval, long maxInterval) throws IllegalArgumentException {
+        if (minInterval <= 0 || maxInterval < minInterval) {
+            throw new IllegalArgumentException(String.format("Invalid polling interval %d-%d", minInterval, maxInterval));
+        }
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.interval = minInterval;
+    }
+
+    @Override
+    public void addWatch(Path path, Runnable onChange) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Watch watch = new Watch(onChange);
+        watch.update(absolute);
+        this.watches.put(absolute, watch);
+        this.start();
+    }
+
+    @Override
+    public void removeWatch(Path path) {
+        this.watches.remove(path.toAbsolutePath());
+    }
+
+    private synchronized void start() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Config Polling Watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.schedule(this::scan, this.interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void scan() {
+        boolean changed = false;
+        for (Map.Entry<Path, Watch> entry : this.watches.entrySet()) {
+            Watch watch = entry.getValue();
+            try {
+                if (watch.update(entry.getKey())) {
+                    changed = true;
+                    watch.onChange.run();
+                }
+            } catch (IOException e) {
+                System.err.println(String.format("Couldn't check file \"%s\" for changes.", entry.getKey()));
+            } catch (RuntimeException e) {
+                System.err.println(String.format("Error while handling changes to file \"%s\".", entry.getKey()));
+                e.printStackTrace();
+            }
+        }
+
+        synchronized (this) {
+            this.interval = changed ? this.minInterval : Math.min(this.interval * 2, this.maxInterval);
+            this.scheduler.schedule(this::scan, this.interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class Watch {
+        private final Runnable onChange;
+        private long size = -1;
+        private long modified = -1;
+        private long hash = -1;
+
+        private Watch(Runnable onChange) {
+            this.onChange = onChange;
+        }
+
+        /**
+         * Reads the current state of the file, and returns true if its contents changed since the last update.
+         */
+        private boolean update(Path path) throws IOException {
+            long size;
+            long modified;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                size = attributes.size();
+                modified = attributes.lastModifiedTime().toMillis();
+            } catch (NoSuchFileException e) {
+                size = -1;
+                modified = -1;
+            }
+            if (size == this.size && modified == this.modified) {
+                return false;
+            }
+            this.size = size;
+            this.modified = modified;
+
+            long hash = size < 0 ? -1 : hash(path);
+            boolean changed = hash != this.hash;
+            this.hash = hash;
+            return changed;
+        }
+
+        private static long hash(Path path) throws IOException {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[8192];
+            try (InputStream input = Files.newInputStream(path)) {
+                int read;
+                while ((read = input.read(buffer)) > 0) {
+                    crc.update(buffer, 0, read);
+                }
+            } catch (NoSuchFileException e) {
+                return -1;
+            }
+            return crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config.processor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates an index of all classes with public static {@code @Configurable} fields,
+ * and all {@code @AutoSerializable} types, to be read by {@code ConfigBuilder.loadIndexed(ClassLoader, String)}.
+ * <p>
+ * The processor is published as the separate {@code processor} artifact, so it only runs for projects that add it as an annotation processor.
+ * It requires the option {@code -Aconfig.index=<id>}, and writes {@code META-INF/org.infernalstudios.config/<id>.index},
+ * so that indexes of different jars on the same class loader do not replace each other.
+ * Each line of the index is either {@code configurable <binary class name>} or {@code serializable <binary class name>}.
+ * <p>
+ * The annotations are referenced by name, so the processor does not need the library on its own class path.
+ */
+@SupportedAnnotationTypes({
+    ConfigIndexProcessor.CONFIGURABLE_ANNOTATION,
+    ConfigIndexProcessor.SERIALIZABLE_ANNOTATION
+})
+@SupportedOptions(ConfigIndexProcessor.OPTION)
+public class ConfigIndexProcessor extends AbstractProcessor {
+    public static final String OPTION = "config.index";
+    // These must match the constants in ConfigBuilder
+    public static final String INDEX_DIRECTORY = "META-INF/org.infernalstudios.config/";
+    public static final String CONFIGURABLE = "configurable";
+    public static final String SERIALIZABLE = "serializable";
+
+    static final String CONFIGURABLE_ANNOTATION = "org.infernalstudios.config.annotation.Configurable";
+    static final String SERIALIZABLE_ANNOTATION = "org.infernalstudios.config.annotation.AutoSerializable";
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private final Set<String> configurables = new TreeSet<>();
+    private final Set<String> serializables = new TreeSet<>();
+    private final List<Element> originatingElements = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : this.getElementsAnnotatedWith(roundEnv, CONFIGURABLE_ANNOTATION)) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (element.getKind() == ElementKind.FIELD && modifiers.contains(Modifier.STATIC) && modifiers.contains(Modifier.PUBLIC)) {
+                TypeElement type = (TypeElement) element.getEnclosingElement();
+                if (this.configurables.add(this.processingEnv.getElementUtils().getBinaryName(type).toString())) {
+                    this.originatingElements.add(type);
+                }
+            }
+        }
+        for (Element element : this.getElementsAnnotatedWith(roundEnv, SERIALIZABLE_ANNOTATION)) {
+            if (element instanceof TypeElement type) {
+                if (this.serializables.add(this.processingEnv.getElementUtils().getBinaryName(type).toString())) {
+                    this.originatingElements.add(type);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !this.originatingElements.isEmpty()) {
+            this.writeIndex();
+        }
+        return false;
+    }
+
+    private Set<? extends Element> getElementsAnnotatedWith(RoundEnvironment roundEnv, String annotation) {
+        TypeElement type = this.processingEnv.getElementUtils().getTypeElement(annotation);
+        return type == null ? Set.of() : roundEnv.getElementsAnnotatedWith(type);
+    }
+
+    private void writeIndex() {
+        String id = this.processingEnv.getOptions().get(OPTION);
+        if (id == null || !ID.matcher(id).matches()) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(
+                    "The config index needs an id of letters, digits, '_', '.' and '-', such as the mod id, passed with -A%s=<id>", OPTION));
+            return;
+        }
+        String index = INDEX_DIRECTORY + id + ".index";
+        try {
+            FileObject file = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", index, this.originatingElements.toArray(new Element[0]));
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String name : this.configurables) {
+                    writer.write(CONFIGURABLE + " " + name + "\n");
+                }
+                for (String name : this.serializables) {
+                    writer.write(SERIALIZABLE + " " + name + "\n");
+                }
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Could not write config index \"%s\": %s", index, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.infernalstudios.config.annotation.Configurable;
+import org.infernalstudios.config.element.IConfigElement;
+import org.infernalstudios.config.element.handler.ListElementHandler;
+import org.infernalstudios.config.format.TomlConfigFormat;
+import org.infernalstudios.config.watcher.IConfigWatcher;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures the bytes allocated by common operations with {@link ThreadMXBean#getThreadAllocatedBytes(long)},
+ * and fails when an operation allocates more than its declared budget.
+ * <p>
+ * Every operation is warmed up before it is measured, and the budgets are averages over all measured calls,
+ * so they are not affected by one-time allocations such as class loading or cache population.
+ */
+public class AllocationBudgetTest {
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+    private static final int LIST_SIZE = 100;
+
+    // Budgets in bytes per operation, about 1.5 times their baseline. Copying, decoding or encoding the list of LIST_SIZE modes
+    // takes about 500 bytes on its own. An in-memory reload copies the stored config and its list, then decodes the list, about 2 KiB.
+    // A file reload also allocates about 24 KiB of reader and parser buffers, and the parsed strings of the file, about 6 KiB.
+    private static final long GET_BUDGET = 0;
+    private static final long HANDLER_LOOKUP_BUDGET = 0;
+    private static final long LIST_DESERIALIZE_BUDGET = 768;
+    private static final long SAVE_BUDGET = 1_024;
+    private static final long RELOAD_BUDGET = 3_072;
+    private static final long FILE_RELOAD_BUDGET = 48 * 1_024;
+
+    public enum Mode {
+        FIRST, SECOND, THIRD
+    }
+
+    public static final class Values {
+        @Configurable
+        public static int number = 1;
+
+        @Configurable
+        public static String text = "text";
+
+        @Configurable
+        public static List<Mode> modes = new ArrayList<>(Collections.nCopies(LIST_SIZE, Mode.SECOND));
+    }
+
+    // Reloads are measured on their own, not triggered by the writes of save()
+    private static final IConfigWatcher NO_WATCHER = new IConfigWatcher() {
+        @Override
+        public void addWatch(Path path, Runnable onChange) {}
+
+        @Override
+        public void removeWatch(Path path) {}
+    };
+
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Config config = ConfigSchema.compile(Values.class).createInMemory();
+
+    @Test
+    public void elementGet() {
+        IConfigElement<Integer> number = this.element("number");
+        IConfigElement<String> text = this.element("text");
+        this.assertBudget("get()", GET_BUDGET, () -> {
+            number.get();
+            text.get();
+        });
+    }
+
+    @Test
+    public void handlerLookup() {
+        // ArrayList has no exact handler, so it goes through the resolved handlers
+        this.assertBudget("getHandler()", HANDLER_LOOKUP_BUDGET, () -> {
+            Config.getHandler(Integer.class);
+            Config.getHandler(ArrayList.class);
+        });
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void listDeserialize() {
+        IConfigElement<List> modes = this.element("modes");
+        List<Object> stored = new ArrayList<>(Collections.nCopies(LIST_SIZE, Mode.THIRD.name()));
+        this.assertBudget("ListElementHandler.deserialize()", LIST_DESERIALIZE_BUDGET, () -> ListElementHandler.INSTANCE.deserialize(modes, stored));
+    }
+
+    @Test
+    public void saveWithoutChanges() {
+        this.assertBudget("save()", SAVE_BUDGET, this.config::save);
+    }
+
+    @Test
+    public void reload() {
+        this.assertBudget("reload()", RELOAD_BUDGET, this.config::reload);
+    }
+
+    @Test
+    public void reloadFile() throws IOException {
+        Path directory = Files.createTempDirectory("config-allocation");
+        try {
+            Config config = ConfigSchema.compile(Values.class).create(directory.resolve("allocation.toml"), TomlConfigFormat.INSTANCE, NO_WATCHER);
+            this.assertBudget("reload() of a file", FILE_RELOAD_BUDGET, config::reload);
+            config.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private void assertBudget(String operation, long budget, Runnable action) {
+        assumeTrue(this.threads.isThreadAllocatedMemorySupported() && this.threads.isThreadAllocatedMemoryEnabled(),
+                "Thread allocation measurement is not available");
+        for (int i = 0; i < WARMUP; i++) {
+            action.run();
+        }
+
+        long thread = Thread.currentThread().getId();
+        // Reading the allocated bytes may allocate itself, which is subtracted from the result
+        long start = this.threads.getThreadAllocatedBytes(thread);
+        long before = this.threads.getThreadAllocatedBytes(thread);
+        long overhead = before - start;
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        long allocated = this.threads.getThreadAllocatedBytes(thread) - before - overhead;
+
+        long perOperation = allocated / ITERATIONS;
+        assertTrue(perOperation <= budget, String.format("%s allocated %d bytes per call, over its budget of %d bytes", operation, perOperation, budget));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> IConfigElement<T> element(String name) {
+        for (Iterator<IConfigElement<?>> iterator = this.config.getElements(); iterator.hasNext();) {
+            IConfigElement<?> element = iterator.next();
+            if (element.getName().equals(name)) {
+                return (IConfigElement<T>) element;
+            }
+        }
+        return fail(String.format("Element \"%s\" not found", name));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2022 Infernal Studios
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.infernalstudios.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.infernalstudios.config.annotation.Configurable;
+import org.infernalstudios.config.element.IConfigElement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Runs reload, set, batch, save and reads of a config concurrently, and checks that they keep the config consistent.
+ * <p>
+ * Reads are made through {@link Config#consistentRead(java.util.function.Supplier)} and {@link IConfigElement#get()}.
+ * Reads of the {@link Configurable} static fields themselves are not covered, as nothing synchronizes them with the config.
+ */
+public class ConfigStressTest {
+    private static final int ITERATIONS = 2_000;
+    private static final int READERS = 4;
+
+    public static final class Values {
+        @Configurable
+        public static int a = 0;
+
+        @Configurable
+        public static int b = 0;
+
+        @Configurable
+        public static int c = 0;
+    }
+
+    @Test
+    @Timeout(60)
+    public void concurrentReloadSetSaveAndRead() throws IOException, InterruptedException {
+        Config config = Config.builder(Paths.get("stress.toml")).loadClass(Values.class).buildInMemory();
+        IConfigElement<Integer> a = element(config, "a");
+        IConfigElement<Integer> b = element(config, "b");
+        IConfigElement<Integer> c = element(config, "c");
+
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        // a and b are only changed together, so every consistent read has to see b == 2 * a
+        threads.add(thread("batch", start, failures, () -> {
+            for (int i = 1; i <= ITERATIONS; i++) {
+                int value = i;
+                config.batch(transaction -> transaction.set(a, value).set(b, value * 2));
+            }
+        }));
+        threads.add(thread("set", start, failures, () -> {
+            for (int i = 1; i <= ITERATIONS; i++) {
+                c.set(i);
+                config.pollChanges();
+            }
+        }));
+        threads.add(thread("save", start, failures, () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                config.save();
+            }
+        }));
+        threads.add(thread("reload", start, failures, () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                config.reload();
+            }
+        }));
+        for (int reader = 0; reader < READERS; reader++) {
+            threads.add(thread("read-" + reader, start, failures, () -> {
+                long generation = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    int[] values = config.consistentRead(() -> new int[] { a.get(), b.get() });
+                    if (values[1] != values[0] * 2) {
+                        throw new AssertionError(String.format("Inconsistent read a = %d, b = %d", values[0], values[1]));
+                    }
+                    long current = config.getGeneration();
+                    if (current < generation) {
+                        throw new AssertionError(String.format("Generation went back from %d to %d", generation, current));
+                    }
+                    generation = current;
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(50));
+            assertTrue(!thread.isAlive(), String.format("Thread %s did not finish, it may be deadlocked", thread.getName()));
+        }
+        if (!failures.isEmpty()) {
+            Throwable failure = failures.peek();
+            fail(String.format("%d threads failed, first failure: %s", failures.size(), failure), failure);
+        }
+
+        // Every batch was applied, reloads may only have restored values that were saved before
+        assertEquals(ITERATIONS, (int) a.get());
+        assertEquals(ITERATIONS * 2, (int) b.get());
+
+        // After a final save, the stored values are the values of the elements
+        config.save();
+        config.reload();
+        assertEquals(a.get(), config.getConfig().get("a"));
+        assertEquals(b.get(), config.getConfig().get("b"));
+        assertEquals(c.get(), config.getConfig().get("c"));
+        config.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> IConfigElement<T> element(Config config, String name) {
+        for (Iterator<IConfigElement<?>> iterator = config.getElements(); iterator.hasNext();) {
+            IConfigElement<?> element = iterator.next();
+            if (element.getName().equals(name)) {
+                return (IConfigElement<T>) element;
+            }
+        }
+        return fail(String.format("Element \"%s\" not found", name));
+    }
+
+    private static Thread thread(String name, CountDownLatch start, Queue<Throwable> failures, Action action) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+                action.run();
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+}